@@ -0,0 +1,82 @@
+package net.genin.maven.plugin;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Concatener across file counts and sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConcatenerBenchmark {
+
+    @Param({"10", "100"})
+    public int count;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private Path root;
+
+    private Path output;
+
+    private List<String> files;
+
+    private Concatener text;
+
+    private Concatener raw;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("concatener-benchmark");
+        files = Fixtures.scripts(root, count, size);
+        output = root.resolve("all.js");
+        text = new Concatener.Builder(root.toString() + "/").build();
+        raw = new Concatener.Builder(root.toString() + "/").raw().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public byte[] stream() throws Exception {
+        try (InputStream in = text.stream(files)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    @Benchmark
+    public long rawTransfer() throws Exception {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            raw.transferTo(files, channel);
+            return channel.size();
+        }
+    }
+}
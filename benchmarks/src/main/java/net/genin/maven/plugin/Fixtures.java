@@ -0,0 +1,123 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Synthetic sources, templates and trees for the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Write js files.
+     *
+     * @param dir   the directory.
+     * @param count the number of files.
+     * @param size  the approximate size of a file in bytes.
+     * @return the relative paths of the files.
+     * @throws IOException
+     */
+    static List<String> scripts(final Path dir, final int count, final int size) throws IOException {
+        Files.createDirectories(dir.resolve("js"));
+        final List<String> files = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            final String name = "js/script" + i + ".js";
+            Files.write(dir.resolve(name), script(i, size).getBytes(Charsets.UTF_8));
+            files.add(name);
+        }
+        return files;
+    }
+
+    /**
+     * Create a js source.
+     *
+     * @param id   the id of the source.
+     * @param size the approximate size in bytes.
+     * @return the source.
+     */
+    static String script(final int id, final int size) {
+        final StringBuilder js = new StringBuilder();
+        for (int f = 0; js.length() < size; f++) {
+            js.append("/**\n * Function ").append(f).append(".\n */\n")
+                    .append("function module").append(id).append('_').append(f).append("(firstArgument, secondArgument) {\n")
+                    .append("    var result = firstArgument + secondArgument * ").append(f).append(";\n")
+                    .append("    if (result > 100) {\n")
+                    .append("        return 'large ' + result;\n")
+                    .append("    }\n")
+                    .append("    return result;\n")
+                    .append("}\n");
+        }
+        return js.toString();
+    }
+
+    /**
+     * Write a template.
+     *
+     * @param file       the template.
+     * @param scripts    the number of annotated scripts.
+     * @param paragraphs the number of paragraphs of the body.
+     * @throws IOException
+     */
+    static void template(final Path file, final int scripts, final int paragraphs) throws IOException {
+        final StringBuilder html = new StringBuilder("<!DOCTYPE html>\n<html>\n<head lang=\"en\">\n")
+                .append("    <meta charset=\"UTF-8\">\n    <title>Benchmark</title>\n")
+                .append("    <link rel=\"stylesheet\" href=\"css/page.css\">\n</head>\n<body>\n");
+        for (int p = 0; p < paragraphs; p++) {
+            html.append("<div class=\"block\" id=\"block").append(p).append("\">\n    <h4>Title ").append(p)
+                    .append("</h4>\n    <p>").append(Strings.repeat("Some text of the paragraph. ", 4)).append("</p>\n</div>\n");
+        }
+        for (int s = 0; s < scripts; s++) {
+            html.append("<script type=\"application/javascript\" src=\"js/script").append(s)
+                    .append(".js\" data-script-min=\"min/page.min.js\"></script>\n");
+        }
+        html.append("</body>\n</html>\n");
+        Files.createDirectories(file.getParent());
+        Files.write(file, html.toString().getBytes(Charsets.UTF_8));
+    }
+
+    /**
+     * Write a tree of templates and other files.
+     *
+     * @param dir       the root directory.
+     * @param depth     the depth of the tree.
+     * @param width     the number of sub directories by directory.
+     * @param templates the number of templates by directory, with as many not annotated templates and js files.
+     * @throws IOException
+     */
+    static void tree(final Path dir, final int depth, final int width, final int templates) throws IOException {
+        Files.createDirectories(dir);
+        for (int t = 0; t < templates; t++) {
+            template(dir.resolve("page" + t + ".html"), 3, 20);
+            template(dir.resolve("static" + t + ".html"), 0, 20);
+            Files.write(dir.resolve("file" + t + ".js"), script(t, 1024).getBytes(Charsets.UTF_8));
+        }
+        if (depth > 0) {
+            for (int w = 0; w < width; w++) {
+                tree(dir.resolve("dir" + w), depth - 1, width, templates);
+            }
+        }
+    }
+
+    /**
+     * Delete a directory.
+     *
+     * @param dir the directory.
+     * @throws IOException
+     */
+    static void delete(final Path dir) throws IOException {
+        if (dir != null && Files.exists(dir)) {
+            MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+}
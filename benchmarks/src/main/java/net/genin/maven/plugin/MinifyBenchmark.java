@@ -0,0 +1,76 @@
+package net.genin.maven.plugin;
+
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Minify.stream for each processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MinifyBenchmark {
+
+    @Param({"UglifyJs", "BeautifyJs", "GoogleClosure"})
+    public String processor;
+
+    @Param({"4096", "65536"})
+    public int size;
+
+    private Path root;
+
+    private List<String> files;
+
+    private Minify minify;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("minify-benchmark");
+        files = Fixtures.scripts(root, 4, size);
+        final Minify.Builder builder = new Minify.Builder(root.toString() + "/");
+        switch (Minify.Processor.valueOf(processor)) {
+            case BeautifyJs:
+                builder.toBeautifyJs();
+                break;
+            case GoogleClosure:
+                builder.toGoogleClosure();
+                break;
+            default:
+                builder.toUglifyJs();
+        }
+        minify = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public byte[] stream() throws Exception {
+        try (InputStream in = minify.stream(files)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+}
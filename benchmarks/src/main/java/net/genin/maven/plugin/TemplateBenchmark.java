@@ -0,0 +1,63 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmark of the parsing of a template, from a small page to a very large one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({"10", "10000"})
+    public int paragraphs;
+
+    private Path root;
+
+    private Template.Builder builder;
+
+    private Path page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("template-benchmark");
+        page = root.resolve("index.html");
+        Fixtures.template(page, 10, paragraphs);
+        builder = new Template.Builder(Lists.newArrayList("html"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public ArrayListMultimap<String, String> scripts() {
+        final AtomicReference<Template> handled = new AtomicReference<>();
+        builder.template(handled::set).handle(page.toFile());
+        return handled.get().scripts();
+    }
+}
@@ -0,0 +1,67 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark of the traversal of a tree, the templates being parsed by the handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraverseBenchmark {
+
+    /**
+     * the depth of the tree, with 3 sub directories by directory.
+     */
+    @Param({"2", "4"})
+    public int depth;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("traverse-benchmark");
+        Fixtures.tree(root, depth, 3, 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public long traverse() throws Exception {
+        final LongAdder bundles = new LongAdder();
+        new Template.Builder(Lists.newArrayList("html"))
+                .template(t -> bundles.add(t.scripts().keySet().size()))
+                .notTemplate(t -> {
+                })
+                .threads(threads)
+                .traverse(root.toUri().toURL());
+        return bundles.sum();
+    }
+}
@@ -0,0 +1,158 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Manifest of the fingerprinted bundles.
+ * <p>Each bundle is written under a name containing the hash of its content, so it can be cached forever.
+ * The manifest maps the logical name of each bundle, the <em>data-script-min</em> value, to its
+ * fingerprinted name. It is written as a JSON object.</p>
+ * <p>The fingerprinted names of the previous manifest and the replaced names are tracked, so the files
+ * which are no longer referenced can be deleted.</p>
+ */
+public class AssetManifest {
+
+    /**
+     * Number of hexadecimal characters of the hash in the file names.
+     */
+    public static final int HASH_LENGTH = 10;
+
+    /**
+     * The manifest file.
+     */
+    private final File file;
+
+    /**
+     * the fingerprinted name by logical name.
+     */
+    private final ConcurrentMap<String, String> assets = Maps.newConcurrentMap();
+
+    /**
+     * the fingerprinted names written before, which may be no longer referenced.
+     */
+    private final Set<String> previous = Sets.newConcurrentHashSet();
+
+    /**
+     * Constructor.
+     *
+     * @param file the manifest file.
+     * @throws Exception
+     */
+    public AssetManifest(final File file) throws Exception {
+        Preconditions.checkNotNull(file);
+        this.file = file;
+        load();
+    }
+
+    /**
+     * load the fingerprinted names of the previous manifest if exists.
+     *
+     * @throws Exception
+     */
+    private void load() throws Exception {
+        if (!file.isFile()) {
+            return;
+        }
+        try (Reader reader = Files.asCharSource(file, Charsets.UTF_8).openBufferedStream()) {
+            final Map<String, String> saved = new Gson().fromJson(reader, new TypeToken<Map<String, String>>() {
+            }.getType());
+            if (saved != null) {
+                previous.addAll(saved.values());
+            }
+        }
+    }
+
+    /**
+     * Compute the fingerprinted name of a bundle.
+     * <p>The hash is inserted before the extension : <em>min/essai.min.js</em> becomes
+     * <em>min/essai.min.0123456789.js</em>.</p>
+     *
+     * @param name the logical name.
+     * @param hash the hash of the content.
+     * @return the fingerprinted name.
+     */
+    public static String fingerprinted(final String name, final String hash) {
+        Preconditions.checkNotNull(name);
+        Preconditions.checkArgument(hash.length() >= HASH_LENGTH, "Too short hash %s", hash);
+        final String h = hash.substring(0, HASH_LENGTH);
+        final int slash = name.lastIndexOf('/');
+        final int dot = name.lastIndexOf('.');
+        return (dot > slash + 1) ? name.substring(0, dot) + "." + h + name.substring(dot) : name + "." + h;
+    }
+
+    /**
+     * register a fingerprinted bundle.
+     *
+     * @param name          the logical name.
+     * @param fingerprinted the fingerprinted name.
+     */
+    public void put(final String name, final String fingerprinted) {
+        final String replaced = assets.put(name, fingerprinted);
+        if (replaced != null) {
+            previous.add(replaced);
+        }
+    }
+
+    /**
+     * unregister a bundle which is no longer fingerprinted.
+     *
+     * @param name the logical name.
+     */
+    public void remove(final String name) {
+        final String removed = assets.remove(name);
+        if (removed != null) {
+            previous.add(removed);
+        }
+    }
+
+    /**
+     * Take the fingerprinted names written before and no longer referenced.
+     * <p>The names are forgotten, they are returned once.</p>
+     *
+     * @return the names.
+     */
+    public Set<String> removeStale() {
+        final Set<String> stale = Sets.newTreeSet(previous);
+        stale.removeAll(assets.values());
+        previous.clear();
+        return stale;
+    }
+
+    /**
+     * Resolve the name of a bundle.
+     *
+     * @param name the logical name.
+     * @return the fingerprinted name or the logical name if the bundle is not fingerprinted.
+     */
+    public String resolve(final String name) {
+        return assets.getOrDefault(name, name);
+    }
+
+    /**
+     * Write the manifest.
+     *
+     * @throws Exception
+     */
+    public void save() throws Exception {
+        final Map<String, String> sorted = Maps.newTreeMap();
+        sorted.putAll(assets);
+        Files.createParentDirs(file);
+        try (Writer writer = Files.asCharSink(file, Charsets.UTF_8).openBufferedStream()) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(sorted, writer);
+        }
+    }
+}
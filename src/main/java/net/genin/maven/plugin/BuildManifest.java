@@ -0,0 +1,138 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Persistent manifest of the generated bundles.
+ * <p>Each bundle is mapped to a fingerprint of its ordered sources, its processor and its action.
+ * A bundle with the same fingerprint as the previous build does not need to be generated again.</p>
+ */
+public class BuildManifest {
+
+    /**
+     * root directory of the sources.
+     */
+    private final File root;
+
+    /**
+     * The manifest file.
+     */
+    private final File file;
+
+    /**
+     * the fingerprint by bundle.
+     */
+    private final Map<String, String> fingerprints = Maps.newConcurrentMap();
+
+    /**
+     * Constructor.
+     *
+     * @param root the root directory of the sources.
+     * @param file the manifest file.
+     * @throws Exception
+     */
+    public BuildManifest(final String root, final File file) throws Exception {
+        Preconditions.checkNotNull(root);
+        Preconditions.checkNotNull(file);
+        this.root = new File(root);
+        this.file = file;
+        load();
+    }
+
+    /**
+     * load the previous manifest if exists.
+     *
+     * @throws Exception
+     */
+    private void load() throws Exception {
+        if (!file.isFile()) {
+            return;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.asByteSource(file).openBufferedStream()) {
+            properties.load(in);
+        }
+        properties.stringPropertyNames().forEach(k -> fingerprints.put(k, properties.getProperty(k)));
+    }
+
+    /**
+     * Compute the fingerprint of a bundle.
+     * <p>Each field is prefixed by its length and a missing source by a marker, so two different lists
+     * of sources never give the same fingerprint.</p>
+     *
+     * @param srcFiles  the ordered source files.
+     * @param processor the processor name.
+     * @param action    the action.
+     * @return the fingerprint.
+     * @throws Exception
+     */
+    public String fingerprint(final List<String> srcFiles, final String processor, final Template.Action action) throws Exception {
+        Preconditions.checkNotNull(srcFiles);
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, String.valueOf(processor));
+        putString(hasher, String.valueOf(action));
+        hasher.putInt(srcFiles.size());
+        for (String src : srcFiles) {
+            final File f = new File(root, src);
+            putString(hasher, src);
+            if (f.isFile()) {
+                hasher.putBoolean(true).putBytes(Files.asByteSource(f).hash(Hashing.sha256()).asBytes());
+            } else {
+                hasher.putBoolean(false);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        hasher.putInt(value.length()).putString(value, Charsets.UTF_8);
+    }
+
+    /**
+     * Test if the bundle has been generated with the same fingerprint.
+     *
+     * @param bundle      the bundle.
+     * @param fingerprint the current fingerprint.
+     * @param output      the generated file.
+     * @return true if the bundle does not need to be generated.
+     */
+    public boolean isUpToDate(final String bundle, final String fingerprint, final File output) {
+        return output.isFile() && fingerprint.equals(fingerprints.get(bundle));
+    }
+
+    /**
+     * register the fingerprint of an generated bundle.
+     *
+     * @param bundle      the bundle.
+     * @param fingerprint the fingerprint.
+     */
+    public void update(final String bundle, final String fingerprint) {
+        fingerprints.put(bundle, fingerprint);
+    }
+
+    /**
+     * Write the manifest.
+     *
+     * @throws Exception
+     */
+    public void save() throws Exception {
+        final Properties properties = new Properties();
+        properties.putAll(fingerprints);
+        Files.createParentDirs(file);
+        try (OutputStream out = Files.asByteSink(file).openBufferedStream()) {
+            properties.store(out, "minification.script bundles");
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of a build.
+ * <p>The time spent by phase is summed over all the workers. Each bundle is recorded with its generation
+ * time and its sizes. The report is written as a JSON object, the slowest bundles first.</p>
+ */
+public class BuildMetrics {
+
+    /**
+     * The measured phases.
+     */
+    public enum Phase {
+        /**
+         * walk of the tree, handlers included.
+         */
+        traversal,
+        /**
+         * parsing of the templates.
+         */
+        parse,
+        /**
+         * copy of the other files.
+         */
+        copy,
+        /**
+         * write of the modified templates.
+         */
+        render,
+        /**
+         * generation of the bundles.
+         */
+        bundles,
+        /**
+         * jsx transformation of the sources.
+         */
+        jsx,
+        /**
+         * write of the gzip siblings.
+         */
+        gzip
+    }
+
+    /**
+     * The report file.
+     */
+    private final File file;
+
+    /**
+     * the nanoseconds by phase.
+     */
+    private final Map<Phase, LongAdder> phases = Maps.newEnumMap(Phase.class);
+
+    /**
+     * the metrics by bundle.
+     */
+    private final ConcurrentMap<String, BundleMetrics> bundles = Maps.newConcurrentMap();
+
+    /**
+     * Constructor.
+     *
+     * @param file the report file.
+     */
+    public BuildMetrics(final File file) {
+        Preconditions.checkNotNull(file);
+        this.file = file;
+        for (Phase p : Phase.values()) {
+            phases.put(p, new LongAdder());
+        }
+    }
+
+    /**
+     * Add the time elapsed since a start.
+     *
+     * @param phase the phase.
+     * @param start the start, from {@link System#nanoTime()}.
+     */
+    public void add(final Phase phase, final long start) {
+        phases.get(phase).add(System.nanoTime() - start);
+    }
+
+    /**
+     * the time spent in a phase.
+     *
+     * @param phase the phase.
+     * @return the time in milliseconds.
+     */
+    public long millis(final Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phases.get(phase).sum());
+    }
+
+    /**
+     * the metrics of a bundle, created if needed.
+     *
+     * @param bundle the bundle.
+     * @return the metrics.
+     */
+    public BundleMetrics bundle(final Bundle bundle) {
+        return bundles.computeIfAbsent(bundle.target, k -> new BundleMetrics(bundle));
+    }
+
+    /**
+     * Forget the recorded metrics, before a new build.
+     */
+    public void reset() {
+        phases.values().forEach(LongAdder::reset);
+        bundles.clear();
+    }
+
+    /**
+     * Write the report.
+     *
+     * @throws Exception
+     */
+    public void save() throws Exception {
+        final Map<String, Object> report = Maps.newLinkedHashMap();
+        final Map<String, Long> durations = Maps.newLinkedHashMap();
+        phases.forEach((p, n) -> durations.put(p.name(), millis(p)));
+        report.put("phases", durations);
+        final List<BundleMetrics> sorted = bundles.values().stream()
+                .sorted(Comparator.comparingLong((BundleMetrics b) -> b.millis).reversed()
+                        .thenComparing(b -> b.target))
+                .collect(Collectors.toList());
+        report.put("bundles", sorted);
+        Files.createParentDirs(file);
+        try (Writer writer = Files.asCharSink(file, Charsets.UTF_8).openBufferedStream()) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(report, writer);
+        }
+    }
+
+    /**
+     * Metrics of a bundle.
+     */
+    public static class BundleMetrics {
+        final String target;
+        final String action;
+        final boolean style;
+        /**
+         * not generated again.
+         */
+        boolean upToDate;
+        /**
+         * inlined in the templates.
+         */
+        boolean inlined;
+        /**
+         * generation time, jsx transformation included.
+         */
+        long millis;
+        /**
+         * jsx transformation time.
+         */
+        long jsxMillis;
+        long bytesIn;
+        long bytesOut;
+        long gzipBytes;
+        /**
+         * bytesOut / bytesIn.
+         */
+        double ratio;
+        /**
+         * gzipBytes / bytesOut.
+         */
+        double gzipRatio;
+
+        private BundleMetrics(final Bundle bundle) {
+            this.target = bundle.target;
+            this.action = String.valueOf(bundle.action);
+            this.style = bundle.style;
+        }
+
+        /**
+         * Record the generation.
+         *
+         * @param start    the start, from {@link System#nanoTime()}.
+         * @param upToDate true if the bundle was not generated again.
+         * @param bytesIn  the size of the sources.
+         * @param bytesOut the size of the bundle.
+         */
+        synchronized void generated(final long start, final boolean upToDate, final long bytesIn, final long bytesOut) {
+            this.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            this.upToDate = upToDate;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.ratio = (bytesIn == 0) ? 0 : (double) bytesOut / bytesIn;
+        }
+
+        synchronized void jsx(final long start) {
+            this.jsxMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        synchronized void inlined() {
+            this.inlined = true;
+        }
+
+        synchronized void gzipped(final long gzipBytes) {
+            this.gzipBytes = gzipBytes;
+            this.gzipRatio = (bytesOut == 0) ? 0 : (double) gzipBytes / bytesOut;
+        }
+    }
+}
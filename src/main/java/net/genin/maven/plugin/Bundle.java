@@ -0,0 +1,125 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bundle declared in the templates.
+ * <p>The bundle is the target file of an <em>data-script-min</em> or <em>data-style-min</em> attribute
+ * with its ordered sources.</p>
+ */
+public class Bundle {
+
+    /**
+     * the relative path of the bundle.
+     */
+    public final String target;
+
+    /**
+     * the ordered source files.
+     */
+    public final List<String> sources;
+
+    /**
+     * the action for the bundle.
+     */
+    public final Template.Action action;
+
+    /**
+     * true for a stylesheet bundle.
+     */
+    public final boolean style;
+
+    /**
+     * the processor of the <em>data-processor-min</em> attribute, or null for the configured one.
+     */
+    public final Minify.Processor processor;
+
+    /**
+     * Constructor of a script bundle.
+     *
+     * @param target  the relative path of the bundle.
+     * @param sources the ordered source files.
+     * @param action  the action.
+     */
+    public Bundle(final String target, final List<String> sources, final Template.Action action) {
+        this(target, sources, action, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param target  the relative path of the bundle.
+     * @param sources the ordered source files.
+     * @param action  the action.
+     * @param style   true for a stylesheet bundle.
+     */
+    public Bundle(final String target, final List<String> sources, final Template.Action action, final boolean style) {
+        this(target, sources, action, style, null);
+    }
+
+    /**
+     * Constructor with a specific processor.
+     *
+     * @param target    the relative path of the bundle.
+     * @param sources   the ordered source files.
+     * @param action    the action.
+     * @param style     true for a stylesheet bundle.
+     * @param processor the processor, or null for the configured one.
+     */
+    public Bundle(final String target, final List<String> sources, final Template.Action action, final boolean style,
+                  final Minify.Processor processor) {
+        Preconditions.checkNotNull(target);
+        Preconditions.checkNotNull(sources);
+        Preconditions.checkNotNull(action);
+        this.target = target;
+        this.sources = ImmutableList.copyOf(sources);
+        this.action = action;
+        this.style = style;
+        this.processor = processor;
+    }
+
+    /**
+     * Compute the size of the sources.
+     *
+     * @param root the root directory.
+     * @return the size in bytes.
+     */
+    public long size(final String root) {
+        return sources.stream().mapToLong(s -> new File(root, s).length()).sum();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Bundle)) {
+            return false;
+        }
+        final Bundle bundle = (Bundle) o;
+        return target.equals(bundle.target) && sources.equals(bundle.sources) && action == bundle.action
+                && style == bundle.style && processor == bundle.processor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(target, sources, action, style, processor);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("target", target)
+                .add("sources", sources)
+                .add("action", action)
+                .add("style", style)
+                .add("processor", processor)
+                .toString();
+    }
+}
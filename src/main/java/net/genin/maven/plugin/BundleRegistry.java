@@ -0,0 +1,120 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.net.URL;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the bundles declared by all the templates of the build.
+ * <p>A bundle declared by many templates is generated once. Two declarations of the same target
+ * must have the same ordered sources, action, kind and processor.</p>
+ */
+public class BundleRegistry {
+
+    /**
+     * the first declaration by target.
+     */
+    private final ConcurrentMap<String, Declaration> declarations = Maps.newConcurrentMap();
+
+    /**
+     * Register the bundle of a template.
+     *
+     * @param template the url of the template.
+     * @param bundle   the bundle.
+     * @return true if it's the first declaration of the bundle.
+     * @throws IllegalStateException if the bundle is already declared differently.
+     */
+    public boolean register(final URL template, final Bundle bundle) {
+        Preconditions.checkNotNull(template);
+        Preconditions.checkNotNull(bundle);
+        final Declaration declaration = new Declaration(template, bundle);
+        final Declaration previous = declarations.putIfAbsent(bundle.target, declaration);
+        if (previous == null) {
+            return true;
+        }
+        if (!previous.bundle.equals(bundle)) {
+            throw new IllegalStateException(String.format("The bundle %s is declared differently in %s and %s : %s",
+                    bundle.target, previous.template, template, differences(previous.bundle, bundle)));
+        }
+        return false;
+    }
+
+    /**
+     * Describe the differences between two declarations of a bundle.
+     *
+     * @param first  the first declaration.
+     * @param second the second declaration.
+     * @return the differing fields with their two values.
+     */
+    private static String differences(final Bundle first, final Bundle second) {
+        final List<String> differences = Lists.newArrayList();
+        if (!first.sources.equals(second.sources)) {
+            differences.add("sources " + first.sources + " and " + second.sources);
+        }
+        if (first.action != second.action) {
+            differences.add("action " + first.action + " and " + second.action);
+        }
+        if (first.style != second.style) {
+            differences.add("kind " + kind(first) + " and " + kind(second));
+        }
+        if (first.processor != second.processor) {
+            differences.add("processor " + first.processor + " and " + second.processor);
+        }
+        return Joiner.on(", ").join(differences);
+    }
+
+    private static String kind(final Bundle bundle) {
+        return bundle.style ? "style" : "script";
+    }
+
+    /**
+     * all the registered bundles.
+     *
+     * @return the bundles sorted by target.
+     */
+    public List<Bundle> bundles() {
+        return declarations.values().stream()
+                .map(d -> d.bundle)
+                .sorted(Comparator.comparing(b -> b.target))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * the registered bundles for an action.
+     *
+     * @param action the action.
+     * @return the bundles sorted by target.
+     */
+    public List<Bundle> bundles(final Template.Action action) {
+        return bundles().stream().filter(b -> b.action.equals(action)).collect(Collectors.toList());
+    }
+
+    /**
+     * the number of registered bundles.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return declarations.size();
+    }
+
+    /**
+     * the first declaration of a bundle.
+     */
+    private static class Declaration {
+        private final URL template;
+        private final Bundle bundle;
+
+        private Declaration(URL template, Bundle bundle) {
+            this.template = template;
+            this.bundle = bundle;
+        }
+    }
+}
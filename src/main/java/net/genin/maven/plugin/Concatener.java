@@ -1,18 +1,25 @@
 package net.genin.maven.plugin;
 
 import com.google.common.base.Charsets;
-import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.io.Resources;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.net.URISyntaxException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Concatenation of files.
@@ -40,24 +47,87 @@ public class Concatener {
      * @throws Exception
      */
     public InputStream stream(List<String> srcFiles) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(srcFiles, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Write the concatenated files in UTF-8 to a stream.
+     * <p>The files are read one by one, only one file is in memory.</p>
+     *
+     * @param srcFiles the list of source files.
+     * @param out      the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(List<String> srcFiles, OutputStream out) throws Exception {
+        writeTo(srcFiles, null, out);
+    }
+
+    /**
+     * Write the concatenated stylesheets in UTF-8 to a stream, with their urls rebased on the generated file.
+     * <p>The raw stylesheets are decoded for the rebase but not trimmed.</p>
+     *
+     * @param srcFiles the list of source files.
+     * @param target   the path of the generated file, relative to the root directory, or null for no rebase.
+     * @param out      the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(List<String> srcFiles, String target, OutputStream out) throws Exception {
         Preconditions.checkNotNull(srcFiles);
+        Preconditions.checkNotNull(out);
 
-        final List<String> all = srcFiles.stream().map(e -> {
-            try {
-                return builder.root.toURI().toString() + e;
-            } catch (URISyntaxException e1) {
-                throw new RuntimeException(e1);
-            }
-        }).map(e -> {
-            try {
-                return Resources.toString(new URL(e), Charsets.UTF_8).trim();
-            } catch (Exception e1) {
-                throw new RuntimeException(e1);
+        if (builder.raw && target == null) {
+            transferTo(srcFiles, Channels.newChannel(out));
+            return;
+        }
+        try (Writer writer = WriterManager.utf8Writer(out)) {
+            boolean first = true;
+            for (String e : srcFiles) {
+                final URL url = new URL(builder.root.toURI().toString() + e);
+                if (!first) {
+                    writer.write(builder.separator);
+                }
+                final String content = Resources.toString(url, Charsets.UTF_8);
+                final String rebased = (target == null) ? content : CssUrls.rebase(content, e, target);
+                writer.write(builder.raw ? rebased : rebased.trim());
+                first = false;
             }
-        }).collect(Collectors.toList());
+        }
+    }
 
-        final String target = builder.joiner.join(all);
-        return new ByteArrayInputStream(target.getBytes());
+    /**
+     * Splice the bytes of the files to a channel.
+     * <p>The files are neither decoded nor trimmed. The bytes are transferred by the file system
+     * when the target is a file channel.</p>
+     *
+     * @param srcFiles the list of source files.
+     * @param target   the channel. It is not closed.
+     * @throws Exception
+     */
+    public void transferTo(List<String> srcFiles, WritableByteChannel target) throws Exception {
+        Preconditions.checkNotNull(srcFiles);
+        Preconditions.checkNotNull(target);
+
+        final byte[] separator = builder.separator.getBytes(Charsets.UTF_8);
+        boolean first = true;
+        for (String e : srcFiles) {
+            final Path path = Paths.get(new URL(builder.root.toURI().toString() + e).toURI());
+            if (!first) {
+                final ByteBuffer buffer = ByteBuffer.wrap(separator);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+            try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+                final long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            }
+            first = false;
+        }
     }
 
     /**
@@ -69,7 +139,15 @@ public class Concatener {
          */
         URL root;
 
-        Joiner joiner = Joiner.on('\n');
+        /**
+         * the separator between the files.
+         */
+        String separator = "\n";
+
+        /**
+         * byte-level concatenation.
+         */
+        boolean raw;
 
         /**
          * Constructor.
@@ -91,7 +169,27 @@ public class Concatener {
          */
         public Builder joiner(Character c) {
             Preconditions.checkNotNull(c);
-            joiner = Joiner.on(c);
+            separator = String.valueOf(c);
+            return this;
+        }
+
+        /**
+         * Specify the separator between the files.
+         * @param separator the separator
+         * @return the builder
+         */
+        public Builder separator(String separator) {
+            Preconditions.checkNotNull(separator);
+            this.separator = separator;
+            return this;
+        }
+
+        /**
+         * Concatenate the bytes of the files without decoding nor trimming them.
+         * @return the builder
+         */
+        public Builder raw() {
+            raw = true;
             return this;
         }
 
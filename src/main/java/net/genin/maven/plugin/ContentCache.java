@@ -0,0 +1,227 @@
+package net.genin.maven.plugin;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Content-addressed cache of the generated texts.
+ * <p>Each text is kept in a file named by its key, the hash of everything the text depends on. The files
+ * are spread in sub directories named by the first two characters of the key. A file is written in a
+ * temporary file then renamed, so a reader never sees a partial file.</p>
+ * <p>The cache can be shared by several builds, including concurrent ones. With a maximum size, the least
+ * recently used files are evicted once the cache is full. A hit updates the modification time of the file
+ * and the eviction is done under a lock on the <em>.lock</em> file of the cache directory.</p>
+ */
+public class ContentCache {
+
+    /**
+     * The lock file of the eviction.
+     */
+    public static final String LOCK_FILE = ".lock";
+
+    /**
+     * Extension of the files being written.
+     */
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * the locks of the eviction in this jvm by cache directory. A file lock is held by the whole jvm.
+     */
+    private static final ConcurrentMap<String, Object> LOCKS = Maps.newConcurrentMap();
+
+    /**
+     * the cache directory.
+     */
+    private final File dir;
+
+    /**
+     * the maximum size in bytes, 0 for no limit.
+     */
+    private final long maxSize;
+
+    /**
+     * the estimated size in bytes, -1 before the first write.
+     */
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * the number of texts computed because they were not in the cache.
+     */
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Constructor of an unbounded cache.
+     *
+     * @param dir the cache directory.
+     */
+    public ContentCache(final File dir) {
+        this(dir, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dir     the cache directory.
+     * @param maxSize the maximum size in bytes, 0 for no limit.
+     */
+    public ContentCache(final File dir, final long maxSize) {
+        Preconditions.checkNotNull(dir);
+        Preconditions.checkArgument(maxSize >= 0, "Invalid cache size %s", maxSize);
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Compute a key.
+     *
+     * @param parts the texts the cached text depends on.
+     * @return the sha-256 of the parts.
+     */
+    public static String key(final String... parts) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (String p : parts) {
+            hasher.putInt(p.length()).putString(p, Charsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Get a text, computed and kept if not in the cache.
+     *
+     * @param key    the key.
+     * @param loader the computation of the text.
+     * @return the text.
+     * @throws Exception
+     */
+    public String get(final String key, final Callable<String> loader) throws Exception {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(loader);
+        final File cached = file(key);
+        if (cached.isFile()) {
+            try {
+                final String text = Files.asCharSource(cached, Charsets.UTF_8).read();
+//              the time of the last use, for the eviction.
+                cached.setLastModified(System.currentTimeMillis());
+                return text;
+            } catch (FileNotFoundException e) {
+//              evicted by another build.
+            }
+        }
+        misses.incrementAndGet();
+        final String text = loader.call();
+        Files.createParentDirs(cached);
+        final Path tmp = WriterManager.createSibling(cached.toPath(), TMP_SUFFIX);
+        try {
+            Files.asCharSink(tmp.toFile(), Charsets.UTF_8).write(text);
+            WriterManager.move(tmp, cached.toPath());
+        } finally {
+            java.nio.file.Files.deleteIfExists(tmp);
+        }
+        if (maxSize > 0) {
+            if (size.get() < 0) {
+                size.compareAndSet(-1, sizeOf(files()));
+            }
+            if (size.addAndGet(cached.length()) > maxSize) {
+                evict();
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Delete the least recently used files until the cache is under 90% of its maximum size.
+     *
+     * @throws IOException
+     */
+    @VisibleForTesting
+    void evict() throws IOException {
+        java.nio.file.Files.createDirectories(dir.toPath());
+        synchronized (LOCKS.computeIfAbsent(dir.getCanonicalPath(), d -> new Object())) {
+            try (FileChannel channel = FileChannel.open(new File(dir, LOCK_FILE).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                final FileLock lock = channel.lock();
+                try {
+                    evictLocked();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private void evictLocked() {
+        final List<File> files = files();
+        files.sort(Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+        long total = sizeOf(files);
+        final long target = maxSize - maxSize / 10;
+        for (File f : files) {
+            if (total <= target) {
+                break;
+            }
+            final long length = f.length();
+            if (f.delete()) {
+                total -= length;
+            }
+        }
+        size.set(total);
+    }
+
+    /**
+     * The number of texts computed because they were not in the cache.
+     *
+     * @return the number.
+     */
+    @VisibleForTesting
+    int misses() {
+        return misses.get();
+    }
+
+    /**
+     * The cache file of a key.
+     *
+     * @param key the key.
+     * @return the file.
+     */
+    @VisibleForTesting
+    File file(final String key) {
+        return new File(new File(dir, key.substring(0, Math.min(2, key.length()))), key);
+    }
+
+    private List<File> files() {
+        if (!dir.isDirectory()) {
+            return Lists.newArrayList();
+        }
+        return StreamSupport.stream(MoreFiles.fileTraverser().depthFirstPreOrder(dir.toPath()).spliterator(), false)
+                .map(Path::toFile)
+                .filter(File::isFile)
+                .filter(f -> !f.getName().equals(LOCK_FILE) && !f.getName().endsWith(TMP_SUFFIX))
+                .collect(Collectors.toList());
+    }
+
+    private static long sizeOf(final List<File> files) {
+        return files.stream().mapToLong(File::length).sum();
+    }
+}
@@ -0,0 +1,130 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rebase of the relative urls of a stylesheet.
+ * <p>A stylesheet moved to another directory, in a bundle or inlined in a template, keeps referring to the
+ * same images and fonts. The <em>url(...)</em> and the <em>@import</em> with a relative path are rewritten
+ * relative to the new directory. The absolute urls, the data urls and the fragments are kept.</p>
+ */
+public final class CssUrls {
+
+    /**
+     * The url functions, quoted or not.
+     */
+    private static final Pattern URL = Pattern.compile("url\\(\\s*(['\"]?)(.*?)\\1\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The imports by a quoted string.
+     */
+    private static final Pattern IMPORT = Pattern.compile("(@import\\s+)(['\"])(.*?)\\2", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The urls with a scheme, as http: or data:.
+     */
+    private static final Pattern SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:");
+
+    private static final String PARENT = "..";
+
+    private CssUrls() {
+    }
+
+    /**
+     * Rewrite the relative urls of a stylesheet moved to another file.
+     *
+     * @param css    the stylesheet.
+     * @param source the path of the stylesheet, relative to the root directory.
+     * @param target the path of the new file, relative to the root directory.
+     * @return the stylesheet with the rebased urls.
+     */
+    public static String rebase(final String css, final String source, final String target) {
+        Preconditions.checkNotNull(css);
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(target);
+        final List<String> from = directory(source);
+        final List<String> to = directory(target);
+        if (from.equals(to)) {
+            return css;
+        }
+        final StringBuffer urls = new StringBuffer(css.length());
+        final Matcher url = URL.matcher(css);
+        while (url.find()) {
+            final String quote = url.group(1);
+            url.appendReplacement(urls, Matcher.quoteReplacement(
+                    "url(" + quote + rebase(url.group(2), from, to) + quote + ")"));
+        }
+        url.appendTail(urls);
+
+        final StringBuffer imports = new StringBuffer(urls.length());
+        final Matcher imp = IMPORT.matcher(urls);
+        while (imp.find()) {
+            final String quote = imp.group(2);
+            imp.appendReplacement(imports, Matcher.quoteReplacement(
+                    imp.group(1) + quote + rebase(imp.group(3), from, to) + quote));
+        }
+        imp.appendTail(imports);
+        return imports.toString();
+    }
+
+    private static String rebase(final String url, final List<String> from, final List<String> to) {
+        if (url.isEmpty() || url.startsWith("/") || url.startsWith("#") || SCHEME.matcher(url).find()) {
+            return url;
+        }
+//      the query and the fragment are kept as is.
+        int end = url.length();
+        for (char c : new char[]{'?', '#'}) {
+            final int i = url.indexOf(c);
+            if (i >= 0 && i < end) {
+                end = i;
+            }
+        }
+        final List<String> path = Lists.newArrayList(from);
+        for (String segment : Splitter.on('/').split(url.substring(0, end))) {
+            if (segment.equals(PARENT) && !path.isEmpty() && !path.get(path.size() - 1).equals(PARENT)) {
+                path.remove(path.size() - 1);
+            } else if (!segment.equals(".") && !segment.isEmpty()) {
+                path.add(segment);
+            }
+        }
+//      the segments shared with the new directory, except the file name.
+        int common = 0;
+        while (common < to.size() && common < path.size() - 1 && to.get(common).equals(path.get(common))) {
+            common++;
+        }
+        final List<String> relative = Lists.newArrayList();
+        for (int i = common; i < to.size(); i++) {
+            relative.add(PARENT);
+        }
+        relative.addAll(path.subList(common, path.size()));
+        return Joiner.on('/').join(relative) + url.substring(end);
+    }
+
+    /**
+     * The normalized directory of a path.
+     *
+     * @param path the path of a file, relative to the root directory.
+     * @return the segments of its directory.
+     */
+    private static List<String> directory(final String path) {
+        final List<String> segments = Lists.newArrayList();
+        for (String segment : Splitter.on('/').split(path.replace('\\', '/'))) {
+            if (segment.equals(PARENT) && !segments.isEmpty() && !segments.get(segments.size() - 1).equals(PARENT)) {
+                segments.remove(segments.size() - 1);
+            } else if (!segment.equals(".") && !segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        if (!segments.isEmpty()) {
+            segments.remove(segments.size() - 1);
+        }
+        return segments;
+    }
+}
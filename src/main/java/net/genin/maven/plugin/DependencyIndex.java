@@ -0,0 +1,224 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent index of the dependencies between the sources, the bundles and the templates.
+ * <p>Each template is recorded with the bundles it declares, each bundle with its ordered sources.
+ * From a list of changed files, the index gives the bundles and the templates to generate again.</p>
+ * <p>The index is written as a JSON object, so the paths may contain any character.</p>
+ */
+public class DependencyIndex {
+
+    /**
+     * root directory of the sources.
+     */
+    private final Path root;
+
+    /**
+     * The index file.
+     */
+    private final File file;
+
+    /**
+     * the bundles by target.
+     */
+    private final Map<String, Bundle> bundles = Maps.newTreeMap();
+
+    /**
+     * the targets of the bundles by template.
+     */
+    private final Map<String, SortedSet<String>> templates = Maps.newTreeMap();
+
+    /**
+     * Constructor.
+     *
+     * @param root the root directory of the sources.
+     * @param file the index file.
+     * @throws Exception
+     */
+    public DependencyIndex(final String root, final File file) throws Exception {
+        Preconditions.checkNotNull(root);
+        Preconditions.checkNotNull(file);
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.file = file;
+        load();
+    }
+
+    /**
+     * load the previous index if exists.
+     *
+     * @throws Exception
+     */
+    private void load() throws Exception {
+        if (!file.isFile()) {
+            return;
+        }
+        final Snapshot snapshot;
+        try (Reader reader = Files.asCharSource(file, Charsets.UTF_8).openBufferedStream()) {
+            snapshot = new Gson().fromJson(reader, Snapshot.class);
+        }
+        if (snapshot == null) {
+            return;
+        }
+        if (snapshot.bundles != null) {
+            snapshot.bundles.forEach((target, e) -> bundles.put(target, new Bundle(target, e.sources,
+                    e.action, e.style, e.processor)));
+        }
+        if (snapshot.templates != null) {
+            snapshot.templates.forEach((t, targets) -> templates.put(t, Sets.newTreeSet(targets)));
+        }
+    }
+
+    /**
+     * Forget all the recorded templates and bundles.
+     * <p>A full build records all the templates again, the deleted or excluded ones are then forgotten.</p>
+     */
+    public synchronized void clear() {
+        bundles.clear();
+        templates.clear();
+    }
+
+    /**
+     * Record the bundles declared by a template.
+     * <p>The previous declarations of the template are replaced.</p>
+     *
+     * @param template the url of the template.
+     * @param declared the bundles declared by the template.
+     * @throws Exception
+     */
+    public synchronized void record(final URL template, final Collection<Bundle> declared) throws Exception {
+        Preconditions.checkNotNull(template);
+        Preconditions.checkNotNull(declared);
+        final String path = relativize(Paths.get(template.toURI()));
+        if (declared.isEmpty()) {
+            templates.remove(path);
+        } else {
+            templates.put(path, declared.stream().map(b -> b.target).collect(Collectors.toCollection(Sets::newTreeSet)));
+            declared.forEach(b -> bundles.put(b.target, b));
+        }
+    }
+
+    /**
+     * Forget the bundles declared by no template.
+     * <p>Done once by query and on save, not on each record of a template.</p>
+     */
+    private void prune() {
+        final Set<String> used = templates.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+        bundles.keySet().retainAll(used);
+    }
+
+    /**
+     * the bundles with at least one changed source.
+     *
+     * @param changed the changed files.
+     * @return the bundles sorted by target.
+     */
+    public synchronized List<Bundle> bundles(final Collection<Path> changed) {
+        prune();
+        final Set<String> sources = changed.stream().map(this::relativize).collect(Collectors.toSet());
+        return bundles.values().stream()
+                .filter(b -> b.sources.stream().map(this::normalize).anyMatch(sources::contains))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * the templates which declare at least one of the bundles.
+     *
+     * @param declared the bundles.
+     * @return the paths of the templates relative to the root directory.
+     */
+    public synchronized SortedSet<String> templates(final Collection<Bundle> declared) {
+        final Set<String> targets = declared.stream().map(b -> b.target).collect(Collectors.toSet());
+        return templates.entrySet().stream()
+                .filter(e -> e.getValue().stream().anyMatch(targets::contains))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(Sets::newTreeSet));
+    }
+
+    /**
+     * all the recorded bundles.
+     *
+     * @return the bundles sorted by target.
+     */
+    public synchronized List<Bundle> bundles() {
+        prune();
+        return Lists.newArrayList(bundles.values());
+    }
+
+    /**
+     * Write the index.
+     *
+     * @throws Exception
+     */
+    public synchronized void save() throws Exception {
+        prune();
+        final Snapshot snapshot = new Snapshot();
+        snapshot.bundles = Maps.newTreeMap();
+        bundles.forEach((target, b) -> snapshot.bundles.put(target, new Entry(b)));
+        snapshot.templates = templates;
+        Files.createParentDirs(file);
+        try (Writer writer = Files.asCharSink(file, Charsets.UTF_8).openBufferedStream()) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(snapshot, writer);
+        }
+    }
+
+    private String normalize(final String source) {
+        return relativize(root.resolve(CharMatcher.is('/').trimLeadingFrom(source)));
+    }
+
+    private String relativize(final Path path) {
+        final Path absolute = path.toAbsolutePath().normalize();
+        return Joiner.on('/').join(root.relativize(absolute));
+    }
+
+    /**
+     * The saved index.
+     */
+    private static class Snapshot {
+        Map<String, Entry> bundles;
+        Map<String, SortedSet<String>> templates;
+    }
+
+    /**
+     * A saved bundle.
+     */
+    private static class Entry {
+        Template.Action action;
+        boolean style;
+        Minify.Processor processor;
+        List<String> sources;
+
+        private Entry() {
+        }
+
+        private Entry(final Bundle bundle) {
+            this.action = bundle.action;
+            this.style = bundle.style;
+            this.processor = bundle.processor;
+            this.sources = bundle.sources;
+        }
+    }
+}
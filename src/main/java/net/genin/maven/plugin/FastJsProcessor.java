@@ -0,0 +1,374 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CharStreams;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * Pure java js minifier for the development builds.
+ * <p>The source is tokenized in one pass. The comments and the redundant whitespaces are removed, the
+ * strings, the regular expressions and the template literals are copied as is. A line break is kept
+ * where the automatic semicolon insertion may need it. The names are not mangled.</p>
+ * <p>The <em>/*!</em> comments are kept, as the license headers.</p>
+ */
+public class FastJsProcessor implements ResourcePostProcessor {
+
+    /**
+     * The keywords after which a slash starts a regular expression.
+     */
+    private static final Set<String> REGEX_KEYWORDS = ImmutableSet.of("return", "typeof", "instanceof", "in", "of",
+            "new", "delete", "void", "throw", "case", "do", "else", "yield", "await");
+
+    /**
+     * The kind of the last written token.
+     */
+    private enum Token {
+        none, word, literal, punctuator
+    }
+
+    @Override
+    public void process(final Reader reader, final Writer writer) throws IOException {
+        final String source = CharStreams.toString(reader);
+        final StringBuilder out = new StringBuilder(source.length());
+        new Scanner(source, out).run();
+        writer.write(out.toString());
+    }
+
+    /**
+     * The state of the minification of a source.
+     */
+    private static final class Scanner {
+
+        private final String src;
+        private final StringBuilder out;
+        private final int length;
+        private int pos;
+
+        /**
+         * the kind and the value of the last written token.
+         */
+        private Token last = Token.none;
+        private String lastWord = "";
+
+        /**
+         * the end of the last written token in the output, before the kept comments.
+         */
+        private int end;
+
+        /**
+         * the whitespaces skipped since the last token.
+         */
+        private boolean space;
+        private boolean newline;
+
+        /**
+         * the depth of the braces, and the depths at which a template literal continues.
+         */
+        private int braces;
+        private final Deque<Integer> templates = new ArrayDeque<>();
+
+        private Scanner(final String src, final StringBuilder out) {
+            this.src = src;
+            this.out = out;
+            this.length = src.length();
+        }
+
+        private void run() throws IOException {
+            while (pos < length) {
+                final char c = src.charAt(pos);
+                if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029') {
+                    newline = true;
+                    pos++;
+                } else if (Character.isWhitespace(c) || c == '\u00a0' || c == '\ufeff') {
+                    space = true;
+                    pos++;
+                } else if (c == '/' && next(1) == '/') {
+                    skipLineComment();
+                } else if (c == '/' && next(1) == '*') {
+                    blockComment();
+                } else if (c == '"' || c == '\'') {
+                    separate(c);
+                    string(c);
+                } else if (c == '`') {
+                    separate(c);
+                    out.append(c);
+                    pos++;
+                    template();
+                } else if (c == '/' && regexAllowed()) {
+                    separate(c);
+                    regex();
+                } else if (isWordPart(c) || (c == '.' && isDigit(next(1)))) {
+                    separate(c);
+                    word();
+                } else {
+                    punctuator(c);
+                }
+            }
+        }
+
+        private char next(final int offset) {
+            return (pos + offset < length) ? src.charAt(pos + offset) : 0;
+        }
+
+        private void skipLineComment() {
+            while (pos < length && src.charAt(pos) != '\n' && src.charAt(pos) != '\r') {
+                pos++;
+            }
+            newline = true;
+        }
+
+        private void blockComment() throws IOException {
+            final int end = src.indexOf("*/", pos + 2);
+            if (end < 0) {
+                throw new IOException("Unterminated comment at " + position(pos));
+            }
+            if (next(2) == '!') {
+                if (newline && out.length() > 0) {
+                    out.append('\n');
+                }
+                out.append(src, pos, end + 2);
+                if (lineBreakAfter(end + 2)) {
+                    out.append('\n');
+                } else {
+                    space = true;
+                }
+            } else if (src.substring(pos, end).indexOf('\n') >= 0) {
+                newline = true;
+            } else {
+                space = true;
+            }
+            pos = end + 2;
+        }
+
+        private boolean lineBreakAfter(final int index) {
+            int i = index;
+            while (i < length && (src.charAt(i) == ' ' || src.charAt(i) == '\t')) {
+                i++;
+            }
+            return i == length || src.charAt(i) == '\n' || src.charAt(i) == '\r';
+        }
+
+        private void string(final char quote) throws IOException {
+            final int start = pos++;
+            while (pos < length) {
+                final char c = src.charAt(pos++);
+                if (c == '\\') {
+                    pos += (next(0) == '\r' && next(1) == '\n') ? 2 : 1;
+                } else if (c == quote) {
+                    out.append(src, start, pos);
+                    written(Token.literal);
+                    return;
+                } else if (c == '\n') {
+                    break;
+                }
+            }
+            throw new IOException("Unterminated string at " + position(start));
+        }
+
+        /**
+         * Copy a template literal until its end or its next substitution.
+         *
+         * @throws IOException
+         */
+        private void template() throws IOException {
+            final int start = pos;
+            while (pos < length) {
+                final char c = src.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '`') {
+                    out.append(src, start, pos);
+                    written(Token.literal);
+                    return;
+                } else if (c == '$' && next(0) == '{') {
+                    pos++;
+                    out.append(src, start, pos);
+                    templates.push(++braces);
+                    written(Token.punctuator);
+                    return;
+                }
+            }
+            throw new IOException("Unterminated template literal at " + position(start));
+        }
+
+        private void regex() throws IOException {
+            final int start = pos++;
+            boolean inClass = false;
+            while (pos < length) {
+                final char c = src.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '[') {
+                    inClass = true;
+                } else if (c == ']') {
+                    inClass = false;
+                } else if (c == '/' && !inClass) {
+                    while (pos < length && isWordPart(src.charAt(pos))) {
+                        pos++;
+                    }
+                    out.append(src, start, pos);
+                    written(Token.literal);
+                    return;
+                } else if (c == '\n') {
+                    break;
+                }
+            }
+            throw new IOException("Unterminated regular expression at " + position(start));
+        }
+
+        /**
+         * Copy an identifier, a keyword or a number.
+         */
+        private void word() {
+            final int start = pos;
+            final boolean number = isDigit(src.charAt(pos)) || src.charAt(pos) == '.';
+            while (pos < length) {
+                final char c = src.charAt(pos);
+                if (isWordPart(c) || (number && c == '.')) {
+                    pos++;
+                } else if (number && (c == '+' || c == '-') && isExponent(src.charAt(pos - 1), start)) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            lastWord = src.substring(start, pos);
+            out.append(lastWord);
+            written(Token.word);
+        }
+
+        private boolean isExponent(final char previous, final int start) {
+            return (previous == 'e' || previous == 'E')
+                    && !(src.charAt(start) == '0' && (start + 1 < length) && "xXbBoO".indexOf(src.charAt(start + 1)) >= 0);
+        }
+
+        private void punctuator(final char c) throws IOException {
+            if (c == '}' && !templates.isEmpty() && templates.peek() == braces) {
+                templates.pop();
+                braces--;
+                out.append(c);
+                pos++;
+                written(Token.punctuator);
+                template();
+                return;
+            }
+            separate(c);
+            if (c == '{') {
+                braces++;
+            } else if (c == '}') {
+                braces--;
+            }
+            out.append(c);
+            pos++;
+            written(Token.punctuator);
+        }
+
+        /**
+         * Write the whitespace needed between the last token and the next one.
+         *
+         * @param next the first char of the next token.
+         */
+        private void separate(final char next) {
+            if (out.length() > end && out.charAt(out.length() - 1) == '\n') {
+//              a kept comment on its own lines.
+                space = false;
+                newline = false;
+                return;
+            }
+            if (newline && endsStatement() && startsStatement(next)) {
+                out.append('\n');
+            } else if ((space || newline) && needsSpace(next)) {
+                out.append(' ');
+            }
+            space = false;
+            newline = false;
+        }
+
+        private boolean endsStatement() {
+            if (last == Token.word || last == Token.literal) {
+                return true;
+            }
+            if (last != Token.punctuator) {
+                return false;
+            }
+            final char c = lastChar();
+            return c == ')' || c == ']' || c == '}' || ((c == '+' || c == '-') && lastChar(2) == c);
+        }
+
+        private boolean startsStatement(final char next) {
+            return isWordPart(next) || "\"'`([{+-!~/.".indexOf(next) >= 0;
+        }
+
+        private boolean needsSpace(final char next) {
+            if (last == Token.word) {
+                return isWordPart(next)
+                        || (next == '.' && isDigit(lastWord.charAt(0)) && lastWord.indexOf('.') < 0);
+            }
+            if (last == Token.literal) {
+//              the flags of a regular expression, or a keyword after a regular expression without flags.
+                return isWordPart(next) && (isWordPart(lastChar()) || lastChar() == '/');
+            }
+            if (last == Token.punctuator) {
+                final char c = lastChar();
+                return (c == next && (c == '+' || c == '-' || c == '/')) || (c == '/' && next == '*');
+            }
+            return false;
+        }
+
+        private boolean regexAllowed() {
+            switch (last) {
+                case none:
+                    return true;
+                case word:
+                    return REGEX_KEYWORDS.contains(lastWord);
+                case literal:
+                    return false;
+                default:
+                    final char c = lastChar();
+//                  a postfix ++ or -- ends an operand, the slash is a division.
+                    return c != ')' && c != ']' && c != '}' && !((c == '+' || c == '-') && lastChar(2) == c);
+            }
+        }
+
+        private void written(final Token token) {
+            last = token;
+            end = out.length();
+            space = false;
+            newline = false;
+        }
+
+        private char lastChar() {
+            return lastChar(1);
+        }
+
+        private char lastChar(final int offset) {
+            return (end >= offset) ? out.charAt(end - offset) : 0;
+        }
+
+        private String position(final int index) {
+            int line = 1;
+            for (int i = 0; i < index; i++) {
+                if (src.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            return "line " + line;
+        }
+
+        private static boolean isDigit(final char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isWordPart(final char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '$' || c == '_'
+                    || c == '\\' || (c > 127 && Character.isLetterOrDigit(c));
+        }
+    }
+}
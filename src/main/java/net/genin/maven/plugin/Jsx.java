@@ -1,13 +1,15 @@
 package net.genin.maven.plugin;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
-import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
 import org.apache.maven.plugin.logging.Log;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @parameter.
@@ -26,51 +28,53 @@ public class Jsx {
     private final String destination;
 
 
-    /**
-     * dest directory for jsx files.
-     */
-    private final String basedirectory;
-
-
-    public Jsx(String source, String destination, String basedirectory) {
+    public Jsx(String source, String destination) {
         this.source = source;
         this.destination = destination;
-        this.basedirectory = basedirectory;
     }
 
+    /**
+     * Transform the js files of the source directory to the destination directory.
+     * <p>The files are transformed in parallel and logged as soon as they are written.</p>
+     */
     static class Executable {
 
-        private Log log;
+        private final Log log;
+
+        private final JsxTransformer transformer;
 
         public Executable(Log log) {
+            this(log, new JsxTransformer());
+        }
+
+        public Executable(Log log, JsxTransformer transformer) {
             this.log = log;
+            this.transformer = transformer;
         }
 
         public void run(Jsx jsx) throws Exception {
-            final Jsx j = MoreObjects.firstNonNull(jsx, new Jsx(null, null, null));
+            final Jsx j = MoreObjects.firstNonNull(jsx, new Jsx(null, null));
 
             if (Strings.isNullOrEmpty(j.source) || Strings.isNullOrEmpty(j.destination)) {
                 log.warn("No Jsx transformation run. No configuration found.");
                 return;
             }
 
-            final File directory = new File(jsx.basedirectory);
-            final ArrayList<String> p = Lists.newArrayList();
-            p.addAll(Lists.newArrayList("cmd", "/C"));
-            p.addAll(Lists.newArrayList("jsx",
-                    "--source-charset", "utf8", "--output-charset", "utf8",
-                    "--no-cache-dir",
-                    j.source, j.destination));
-
-            final Process process = new ProcessBuilder().command(p).directory(directory).redirectErrorStream(true).start();
-
-
-            process.waitFor();
-            final int i = process.exitValue();
-
-            ByteStreams.copy(process.getInputStream(), System.out);
-            ByteStreams.copy(process.getErrorStream(), System.err);
-            log.info("jsx exitValue : " + i);
+            final File source = new File(j.source);
+            final File destination = new File(j.destination);
+            final List<File> files = Lists.newArrayList(Files.fileTraverser().depthFirstPreOrder(source));
+            files.parallelStream()
+                    .filter(f -> f.isFile() && (f.getName().endsWith(".js") || f.getName().endsWith(".jsx")))
+                    .forEach(f -> {
+                        try {
+                            final File dest = new File(destination, source.toURI().relativize(f.toURI()).getPath());
+                            Files.createParentDirs(dest);
+                            Files.asCharSink(dest, Charsets.UTF_8).write(transformer.transform(Files.asCharSource(f, Charsets.UTF_8).read()));
+                            log.info("jsx " + f);
+                        } catch (Exception e) {
+                            Throwables.propagate(e);
+                        }
+                    });
         }
     }
 
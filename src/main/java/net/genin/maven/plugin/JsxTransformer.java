@@ -0,0 +1,147 @@
+package net.genin.maven.plugin;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
+import ro.isdc.wro.util.WroUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process jsx transformer.
+ * <p>The JSXTransformer script is loaded once by script engine. The loaded engines are kept for the next
+ * files and threads. An engine is used by one thread at a time.</p>
+ * <p>With a cache directory, the output of each source is kept in a file named by the hash of the script
+ * and the source, so an unchanged source is not transformed again.</p>
+ */
+public class JsxTransformer {
+
+    /**
+     * The JSXTransformer script shipped with the plugin.
+     */
+    public static final String DEFAULT_SCRIPT = "JSXTransformer.js";
+
+    /**
+     * the JSXTransformer script.
+     */
+    private final URL script;
+
+    /**
+     * the idle engines.
+     */
+    private final Deque<RhinoScriptBuilder> idles;
+
+    /**
+     * the cache of the outputs, or null.
+     */
+    private final ContentCache cache;
+
+    /**
+     * the hash of the script.
+     */
+    private final HashCode scriptHash;
+
+    /**
+     * the number of transformed sources.
+     */
+    private final AtomicInteger transformations = new AtomicInteger();
+
+    /**
+     * Constructor with the shipped script.
+     */
+    public JsxTransformer() {
+        this(Resources.getResource(JsxTransformer.class, DEFAULT_SCRIPT));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param script the JSXTransformer script.
+     */
+    public JsxTransformer(final URL script) {
+        this(script, null);
+    }
+
+    /**
+     * Constructor with a cache.
+     *
+     * @param script the JSXTransformer script.
+     * @param cache  the cache directory, or null for no cache.
+     */
+    public JsxTransformer(final URL script, final File cache) {
+        this(script, cache, new ConcurrentLinkedDeque<>());
+    }
+
+    /**
+     * Constructor sharing the engines with other transformers of the same script.
+     *
+     * @param script the JSXTransformer script.
+     * @param cache  the cache directory, or null for no cache.
+     * @param idles  the idle engines loaded with the script.
+     */
+    JsxTransformer(final URL script, final File cache, final Deque<RhinoScriptBuilder> idles) {
+        Preconditions.checkNotNull(script);
+        Preconditions.checkNotNull(idles);
+        this.script = script;
+        this.idles = idles;
+        this.cache = (cache != null) ? new ContentCache(cache) : null;
+        try {
+            this.scriptHash = Resources.asByteSource(script).hash(Hashing.sha256());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable script " + script, e);
+        }
+    }
+
+    /**
+     * Transform a jsx source to js.
+     *
+     * @param source the jsx source.
+     * @return the js source.
+     * @throws Exception
+     */
+    public String transform(final String source) throws Exception {
+        Preconditions.checkNotNull(source);
+        if (cache == null) {
+            return compile(source);
+        }
+        return cache.get(ContentCache.key(scriptHash.toString(), source), () -> compile(source));
+    }
+
+    /**
+     * The number of sources transformed by the script.
+     *
+     * @return the number.
+     */
+    @VisibleForTesting
+    int transformations() {
+        return transformations.get();
+    }
+
+    private String compile(final String source) throws Exception {
+        transformations.incrementAndGet();
+        final RhinoScriptBuilder polled = idles.pollFirst();
+        final RhinoScriptBuilder engine = (polled != null) ? polled : load();
+        try {
+            return String.valueOf(engine.evaluate(
+                    String.format("JSXTransformer.transform(%s).code", WroUtil.toJSMultiLineString(source)),
+                    "JSXTransformer.transform"));
+        } finally {
+            idles.offerFirst(engine);
+        }
+    }
+
+    private RhinoScriptBuilder load() throws IOException {
+        try (InputStream in = script.openStream()) {
+            return RhinoScriptBuilder.newClientSideAwareChain().evaluateChain(in, DEFAULT_SCRIPT);
+        }
+    }
+}
@@ -3,27 +3,64 @@ package net.genin.maven.plugin;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharSource;
-import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import ro.isdc.wro.extensions.processor.js.BeautifyJsProcessor;
 import ro.isdc.wro.extensions.processor.js.GoogleClosureCompressorProcessor;
 import ro.isdc.wro.extensions.processor.js.UglifyJsProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssCompressorProcessor;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.security.CodeSource;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
- * Minify and concat js files.
+ * Minify and concat js or css files.
+ * <p>The configured processor is used by default. Another processor can be given for some files, its
+ * instances are kept by the same pool.</p>
+ * <p>In per-file mode, each file is minified alone and its output is cached by content and processor. The
+ * outputs are then concatenated, so a changed file costs only its own minification.</p>
  */
 public class Minify {
+    /**
+     * Separator between the minified js files in per-file mode.
+     */
+    public static final String FILE_SEPARATOR = ";\n";
+
+    /**
+     * The maven descriptor of the plugin jar.
+     */
+    private static final String POM_PROPERTIES = "/META-INF/maven/net.genin.maven.plugin/minification.script/pom.properties";
+
+    private static final String DEV_VERSION = "dev";
+
+    /**
+     * The version of the plugin, for the cache keys.
+     */
+    private static final String PLUGIN_VERSION = pluginVersion();
+
     /**
      * The configuration for the minifier.
      */
@@ -44,27 +81,257 @@ public class Minify {
      * @throws Exception
      */
     public InputStream stream(List<String> srcFiles) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(srcFiles, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Write the minified files in UTF-8 to a stream.
+     * @param srcFiles the list of source files.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(List<String> srcFiles, OutputStream out) throws Exception {
+        writeTo(srcFiles, builder.processor, out);
+    }
+
+    /**
+     * Write the files minified by a specific processor in UTF-8 to a stream.
+     * @param srcFiles the list of source files.
+     * @param processor the processor.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(List<String> srcFiles, Processor processor, OutputStream out) throws Exception {
+        writeTo(srcFiles, processor, null, out);
+    }
+
+    /**
+     * Write the files minified by a specific processor in UTF-8 to a file of the root directory.
+     * <p>The relative urls of the stylesheets are rebased on the directory of the file.</p>
+     * @param srcFiles the list of source files.
+     * @param processor the processor.
+     * @param target the path of the file relative to the root directory, or null for no rebase.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(List<String> srcFiles, Processor processor, String target, OutputStream out) throws Exception {
         Preconditions.checkNotNull(srcFiles);
+        Preconditions.checkNotNull(out);
+        if (builder.cache != null) {
+            writePerFile(srcFiles, processor, target, out);
+            return;
+        }
 
-        final List<CharSource> urls = srcFiles.stream().map(e -> {
+        final List<CharSource> sources = srcFiles.stream()
+                .map(e -> source(e, processor, target))
+                .collect(Collectors.toList());
+
+        writeTo(CharSource.concat(sources), processor, out);
+    }
+
+    /**
+     * Write a minified source in UTF-8 to a stream.
+     * @param source the source.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(CharSource source, OutputStream out) throws Exception {
+        writeTo(source, builder.processor, out);
+    }
+
+    /**
+     * Write a source minified by a specific processor in UTF-8 to a stream.
+     * @param source the source.
+     * @param processor the processor.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    public void writeTo(CharSource source, Processor processor, OutputStream out) throws Exception {
+        Preconditions.checkNotNull(source);
+        Preconditions.checkNotNull(processor);
+        Preconditions.checkNotNull(out);
+
+        try (Writer writer = WriterManager.utf8Writer(out)) {
+            process(source, processor, writer);
+        }
+    }
+
+    /**
+     * Minify each file alone, through the cache, and concatenate the outputs.
+     * @param srcFiles the list of source files.
+     * @param processor the processor.
+     * @param out the stream. It is not closed.
+     * @throws Exception
+     */
+    private void writePerFile(List<String> srcFiles, Processor processor, String target, OutputStream out) throws Exception {
+        final String minified = srcFiles.parallelStream().map(f -> {
             try {
-                return builder.root.toURI().toString() + e;
-            } catch (URISyntaxException e1) {
-                throw new RuntimeException(e1);
+                final String source = source(f, processor, target).read();
+                final String key = ContentCache.key(processor.name(), processor.version(), source);
+                final Callable<String> cached = () -> builder.cache.get(key, () -> {
+                    final StringWriter writer = new StringWriter();
+                    process(CharSource.wrap(source), processor, writer);
+                    return writer.toString();
+                });
+                return (builder.results != null) ? builder.results.get(key, cached) : cached.call();
+            } catch (Exception e) {
+                throw Throwables.propagate(e);
             }
-        }).map(e -> {
-            try {
-                return Resources.asCharSource(new URL(e), Charsets.UTF_8);
-            } catch (MalformedURLException e1) {
-                throw new RuntimeException(e1);
+        }).collect(Collectors.joining(Processor.CssCompressor.equals(processor) ? "\n" : FILE_SEPARATOR));
+        try (Writer writer = WriterManager.utf8Writer(out)) {
+            writer.write(minified);
+        }
+    }
+
+    /**
+     * The source of a file.
+     * @param file the file, relative to the root directory.
+     * @param processor the processor.
+     * @param target the path of the generated file, or null for no rebase.
+     * @return the source, with the urls rebased for a stylesheet.
+     */
+    private CharSource source(String file, Processor processor, String target) {
+        final CharSource source;
+        try {
+            source = Resources.asCharSource(new URL(builder.root.toURI().toString() + file), Charsets.UTF_8);
+        } catch (MalformedURLException | URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+        if (target == null || !Processor.CssCompressor.equals(processor)) {
+            return source;
+        }
+        return new CharSource() {
+            @Override
+            public Reader openStream() throws IOException {
+                return new StringReader(CssUrls.rebase(source.read(), file, target));
+            }
+        };
+    }
+
+    private void process(CharSource source, Processor processor, Writer writer) throws Exception {
+        final ResourcePostProcessor instance = builder.pool.borrow(processor);
+        try (Reader reader = source.openBufferedStream()) {
+            instance.process(reader, writer);
+        } finally {
+            builder.pool.release(processor, instance);
+        }
+    }
+
+    /**
+     * The available processors. The last one is for css files.
+     */
+    public enum Processor {
+        UglifyJs {
+            @Override
+            ResourcePostProcessor create() {
+                return new UglifyJsProcessor();
             }
-        }).collect(Collectors.toList());
+        },
+        BeautifyJs {
+            @Override
+            ResourcePostProcessor create() {
+                return new BeautifyJsProcessor();
+            }
+        },
+        GoogleClosure {
+            @Override
+            ResourcePostProcessor create() {
+                return new GoogleClosureCompressorProcessor();
+            }
+        },
+        Fast {
+            @Override
+            ResourcePostProcessor create() {
+                return new FastJsProcessor();
+            }
+        },
+        CssCompressor {
+            @Override
+            ResourcePostProcessor create() {
+                return new CssCompressorProcessor();
+            }
+        };
 
-        final CharSource all = CharSource.concat(urls);
+        /**
+         * the versions by processor.
+         */
+        private static final ConcurrentMap<Processor, String> VERSIONS = Maps.newConcurrentMap();
+
+        /**
+         * Create a new instance of the processor.
+         *
+         * @return the instance.
+         */
+        abstract ResourcePostProcessor create();
+
+        /**
+         * Test if the processor is for the css files.
+         *
+         * @return true for a css processor.
+         */
+        boolean style() {
+            return this == CssCompressor;
+        }
+
+        /**
+         * The version of the processor, for the cache keys.
+         * <p>The version of the plugin and the hash of the code of the processor: its whole jar, with the
+         * resources it loads, or else its class and its nested classes.</p>
+         *
+         * @return the version.
+         */
+        String version() {
+            return VERSIONS.computeIfAbsent(this, p -> {
+                try {
+                    return PLUGIN_VERSION + ":" + codeHash(p.create().getClass());
+                } catch (Exception e) {
+                    throw Throwables.propagate(e);
+                }
+            });
+        }
 
-        final StringBuilder target = new StringBuilder();
-        builder.processor.process(all.openBufferedStream(), CharStreams.asWriter(target));
-        return new ByteArrayInputStream(target.toString().getBytes());
+        private static String codeHash(final Class<?> type) throws IOException, URISyntaxException {
+            final CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null && "file".equals(source.getLocation().getProtocol())) {
+                final File location = new File(source.getLocation().toURI());
+                if (location.isFile()) {
+                    return Files.asByteSource(location).hash(Hashing.sha256()).toString();
+                }
+            }
+            final Hasher hasher = Hashing.sha256().newHasher();
+            putClasses(hasher, type);
+            return hasher.hash().toString();
+        }
+
+        private static void putClasses(final Hasher hasher, final Class<?> type) throws IOException {
+            final String name = type.getName();
+            hasher.putString(name, Charsets.UTF_8)
+                    .putBytes(Resources.toByteArray(type.getResource('/' + name.replace('.', '/') + ".class")));
+            for (Class<?> nested : type.getDeclaredClasses()) {
+                putClasses(hasher, nested);
+            }
+        }
+    }
+
+    /**
+     * The version of the plugin artifact.
+     *
+     * @return the version of the maven descriptor of the jar, or <em>dev</em> outside of a jar.
+     */
+    private static String pluginVersion() {
+        final URL descriptor = Minify.class.getResource(POM_PROPERTIES);
+        if (descriptor == null) {
+            return DEV_VERSION;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = descriptor.openStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        return properties.getProperty("version", DEV_VERSION);
     }
 
     /**
@@ -78,7 +345,19 @@ public class Minify {
         /**
          * The resource processor.
          */
-        ResourcePostProcessor processor;
+        Processor processor = Processor.UglifyJs;
+        /**
+         * The pool of processor instances.
+         */
+        ProcessorPool pool = new ProcessorPool();
+        /**
+         * The cache of the minified files, for the per-file mode.
+         */
+        ContentCache cache;
+        /**
+         * The minified files kept in memory, in per-file mode.
+         */
+        Cache<String, String> results;
 
         /**
          * Constructor.
@@ -90,8 +369,6 @@ public class Minify {
             } catch (Exception e) {
                 Throwables.propagate(e);
             }
-
-            processor = new UglifyJsProcessor();
         }
 
         /**
@@ -99,7 +376,7 @@ public class Minify {
          * @return the builder
          */
         public Builder toUglifyJs() {
-            processor = new UglifyJsProcessor();
+            processor = Processor.UglifyJs;
             return this;
         }
 
@@ -108,7 +385,7 @@ public class Minify {
          * @return the builder.
          */
         public Builder toBeautifyJs() {
-            processor = new BeautifyJsProcessor();
+            processor = Processor.BeautifyJs;
             return this;
         }
 
@@ -117,7 +394,58 @@ public class Minify {
          * @return the builder.
          */
         public Builder toGoogleClosure() {
-            processor = new GoogleClosureCompressorProcessor();
+            processor = Processor.GoogleClosure;
+            return this;
+        }
+
+        /**
+         * Use the pure java processor, which only removes the comments and the whitespaces.
+         * @return the builder.
+         */
+        public Builder toFast() {
+            processor = Processor.Fast;
+            return this;
+        }
+
+        /**
+         * Use the CssCompressor processor, for css files.
+         * @return the builder.
+         */
+        public Builder toCssCompressor() {
+            processor = Processor.CssCompressor;
+            return this;
+        }
+
+        /**
+         * Share a pool of processor instances.
+         * @param pool the pool.
+         * @return the builder.
+         */
+        public Builder pool(final ProcessorPool pool) {
+            Preconditions.checkNotNull(pool);
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Minify each file alone and keep the outputs in a cache.
+         * @param cache the cache of the minified files.
+         * @return the builder.
+         */
+        public Builder perFile(final ContentCache cache) {
+            Preconditions.checkNotNull(cache);
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Keep the minified files in memory in per-file mode, before the cache.
+         * @param results the minified files by cache key.
+         * @return the builder.
+         */
+        public Builder results(final Cache<String, String> results) {
+            Preconditions.checkNotNull(results);
+            this.results = results;
             return this;
         }
 
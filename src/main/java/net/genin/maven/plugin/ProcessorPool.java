@@ -0,0 +1,94 @@
+package net.genin.maven.plugin;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Pool of js processors.
+ * <p>The Rhino-backed processors load and compile their script on first use. The pool keeps the
+ * initialized instances for the next bundles and threads. An instance is used by one thread at a time.</p>
+ */
+public class ProcessorPool {
+
+    /**
+     * The script used for initializing the processors.
+     */
+    private static final String WARM_UP_SCRIPT = "function warmUp(a){return a+1}warmUp(1);";
+
+    /**
+     * the idle instances by processor.
+     */
+    private final ConcurrentMap<Minify.Processor, Deque<ResourcePostProcessor>> idles = Maps.newConcurrentMap();
+
+    /**
+     * Take an instance of the processor.
+     *
+     * @param processor the processor.
+     * @return an idle instance or a new one.
+     */
+    public ResourcePostProcessor borrow(final Minify.Processor processor) {
+        Preconditions.checkNotNull(processor);
+        final ResourcePostProcessor instance = idle(processor).pollFirst();
+        return (instance != null) ? instance : processor.create();
+    }
+
+    /**
+     * Give back an instance to the pool.
+     *
+     * @param processor the processor.
+     * @param instance  the instance.
+     */
+    public void release(final Minify.Processor processor, final ResourcePostProcessor instance) {
+        Preconditions.checkNotNull(processor);
+        Preconditions.checkNotNull(instance);
+        idle(processor).offerFirst(instance);
+    }
+
+    /**
+     * Initialize instances of the processor before the first bundle.
+     *
+     * @param processor the processor.
+     * @param instances the number of instances.
+     */
+    public void warmUp(final Minify.Processor processor, final int instances) {
+        Preconditions.checkNotNull(processor);
+        final List<ResourcePostProcessor> warmed = IntStream.range(0, Math.max(1, instances)).parallel()
+                .mapToObj(i -> {
+                    final ResourcePostProcessor instance = processor.create();
+                    try {
+                        instance.process(new StringReader(WARM_UP_SCRIPT), new StringWriter());
+                    } catch (Exception e) {
+                        Throwables.propagate(e);
+                    }
+                    return instance;
+                }).collect(Collectors.toList());
+        warmed.forEach(p -> release(processor, p));
+    }
+
+    /**
+     * The number of idle instances.
+     *
+     * @param processor the processor.
+     * @return the number.
+     */
+    @VisibleForTesting
+    int idles(final Minify.Processor processor) {
+        return idle(processor).size();
+    }
+
+    private Deque<ResourcePostProcessor> idle(final Minify.Processor processor) {
+        return idles.computeIfAbsent(processor, p -> new ConcurrentLinkedDeque<>());
+    }
+}
@@ -1,22 +1,45 @@
 package net.genin.maven.plugin;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.InputStream;
-import java.net.URI;
+import java.io.OutputStream;
 import java.net.URL;
-import java.util.ArrayList;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 
 /**
  * Mojo for minifying js scripts.
@@ -25,8 +48,15 @@ import java.util.Collections;
  * @phase generate-resources
  */
 public class ScriptMojo extends AbstractMojo {
-    public static final String JSX_SRC_DIR = "target/jsx/source";
-    public static final String JSX_DEST_DIR = "target/jsx/dest";
+    public static final String WORK_DIR = "target/minification";
+    public static final String MANIFEST_FILE = "manifest.properties";
+    public static final String DEPENDENCIES_FILE = "dependencies.json";
+    public static final String JSX_CACHE_DIR = "jsx";
+    public static final String ASSETS_FILE = "assets.json";
+    public static final String INLINE_DIR = "inline";
+    public static final String METRICS_FILE = "metrics.json";
+    public static final String FILES_CACHE_DIR = "files";
+    public static final String SHARED_CACHE_DIR = ".m2/minification-cache";
     /**
      * Root directory.
      *
@@ -49,12 +79,32 @@ public class ScriptMojo extends AbstractMojo {
      * @parameter
      */
     private String[] extensions;
+
+    /**
+     * Globs of the files to treat, relative to the root directory. All the files by default.
+     *
+     * @parameter
+     */
+    private String[] includes;
+
     /**
-     * Jsx.
+     * Globs of the files and directories to skip, relative to the root directory, as
+     * <em>**&#47;node_modules/**</em>. The excluded directories are not traversed.
      *
-     * @parameter expression="${basedir}"
+     * @parameter
      */
-    private File jsxBaseDirectory;
+    private String[] excludes;
+
+    /**
+     * The filter of the traversed files.
+     */
+    private SourceFilter filter;
+    /**
+     * JSXTransformer script. The script shipped with the plugin is used by default.
+     *
+     * @parameter
+     */
+    private File jsxTransformer;
 
     /**
      * Jsx Source.
@@ -71,130 +121,609 @@ public class ScriptMojo extends AbstractMojo {
     private String jsxDestination;
 
     /**
-     * Processor for js minifier.
+     * Processor for js minifier : UglifyJs, BeautifyJs, GoogleClosure or Fast. A bundle may declare another processor with the <em>data-processor-min</em> attribute.
      *
      * @parameter default-value="UglifyJs"
      */
     private String processor;
 
+    /**
+     * Working directory for the build informations.
+     *
+     * @parameter default-value="${project.build.directory}/minification"
+     */
+    private String workDirectory;
+
+    /**
+     * Skip the bundles whose sources, processor and action have not changed.
+     *
+     * @parameter default-value="true"
+     */
+    private boolean incremental = true;
+
+    /**
+     * Number of workers for handling the templates and generating the bundles.
+     *
+     * @parameter default-value="1"
+     */
+    private int threads = 1;
+
+    /**
+     * Concatenate the bytes of the files for the concat action, without decoding nor trimming them.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean rawConcat;
+
+    /**
+     * Separator between the files for the concat action. A line feed by default.
+     *
+     * @parameter
+     */
+    private String concatSeparator;
+
+    /**
+     * Minify each source alone and keep its output in the work directory, so a changed source costs only
+     * its own minification. The outputs of a bundle are concatenated.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean perFile;
+
+    /**
+     * Keep the minified sources in a cache shared by the builds of the machine, across projects and branches.
+     * It implies the per-file mode.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean sharedCache;
+
+    /**
+     * Directory of the shared cache.
+     *
+     * @parameter default-value="${user.home}/.m2/minification-cache"
+     */
+    private File sharedCacheDirectory;
+
+    /**
+     * Maximum size in bytes of the shared cache, or of the per-file cache of the work directory. The least
+     * recently used sources are evicted beyond it.
+     *
+     * @parameter default-value="268435456"
+     */
+    private long sharedCacheMaxSize = 256L * 1024 * 1024;
+
+    /**
+     * Initialize one processor by worker before generating the bundles.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean warmUp;
+
+    /**
+     * Write a gzip sibling (.gz) next to each bundle and each rewritten template.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean gzip;
+
+    /**
+     * Compression level of the gzip siblings, from 1 to 9.
+     *
+     * @parameter default-value="9"
+     */
+    private int gzipLevel = Deflater.BEST_COMPRESSION;
+
+    /**
+     * Write the bundles under a name containing the hash of their content and use it in the templates.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean fingerprint;
+
+    /**
+     * Maximum size in bytes of the minify and concat bundles inlined in the templates. 0 for no inlining.
+     * <p>The bundles with the <em>inline</em> action are always inlined.</p>
+     *
+     * @parameter default-value="0"
+     */
+    private long inlineThreshold;
+
+    /**
+     * JSON manifest of the fingerprinted bundle names, by logical name.
+     *
+     * @parameter default-value="${project.build.directory}/minification/assets.json"
+     */
+    private File assetManifest;
+
+    /**
+     * JSON report of the time spent by phase and of the generation time and sizes of each bundle.
+     *
+     * @parameter default-value="${project.build.directory}/minification/metrics.json"
+     */
+    private File metricsReport;
+
+    /**
+     * The maven session, for sharing the processors and the caches between the modules.
+     *
+     * @parameter default-value="${session}"
+     * @readonly
+     */
+    private Object session;
+
+    /**
+     * The minifier of the sources.
+     */
+    private Minify minify;
+
+    /**
+     * The configured processor of the scripts.
+     */
+    private Minify.Processor minifyProcessor;
+
+    /**
+     * The in-process jsx transformer.
+     */
+    private JsxTransformer transformer;
+
+    /**
+     * The concatener of the sources.
+     */
+    private Concatener concatener;
+
+    /**
+     * The manifest of the generated bundles.
+     */
+    private BuildManifest manifest;
+
+    /**
+     * The dependencies between the sources, the bundles and the templates.
+     */
+    private DependencyIndex dependencies;
+
+    /**
+     * The fingerprinted names of the bundles.
+     */
+    private AssetManifest assets;
+
+    /**
+     * The metrics of the build.
+     */
+    private BuildMetrics metrics;
+
+    /**
+     * The templates rendered after the bundles, in fingerprint or inline mode. Only their urls are kept,
+     * they are parsed again when rendered.
+     */
+    private final Queue<URL> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The contents of the inlined bundles.
+     */
+    private final ConcurrentMap<String, String> inlined = Maps.newConcurrentMap();
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         try {
-            getLog().info("initialize");
-//           INIT parameters.
-            final ArrayList<String> exts = Lists.newArrayList(MoreObjects.firstNonNull(extensions, new String[]{"html"}));
-            final URL file = new File(root).toURI().toURL();
-            final Minify.Builder builder = new Minify.Builder(root);
-            final Minify.Builder jsxbuilder = new Minify.Builder(JSX_DEST_DIR);
-            switch (processor) {
-                case "BeautifyJs":
-                    builder.toBeautifyJs();
-                    jsxbuilder.toBeautifyJs();
-                    break;
-                case "GoogleClosure":
-                    builder.toGoogleClosure();
-                    jsxbuilder.toGoogleClosure();
-                    break;
-                case "UglifyJs":
-                default:
-                    builder.toUglifyJs();
-                    jsxbuilder.toUglifyJs();
-            }
-            final Minify minify = builder.build();
-            final Concatener concatener = new Concatener.Builder(root).build();
+            initialize();
             getLog().info("Launch ...");
-            final ImmutableMap.Builder<String, String> jsxs = new ImmutableMap.Builder<>();
-            new Template.Builder(exts).notTemplate((n) -> {
+            final BundleRegistry registry = new BundleRegistry();
+            final long start = System.nanoTime();
+            templates(registry).traverse(new File(root).toURI().toURL());
+            metrics.add(BuildMetrics.Phase.traversal, start);
+            getLog().info(registry.size() + " bundles.");
+            generate(registry.bundles());
+            getLog().info("Finish");
+        } catch (MojoExecutionException | MojoFailureException e) {
+            throw e;
+        } catch (Exception ex) {
+            getLog().error("Error in plugin", ex);
+            throw new MojoFailureException("Error ->", ex);
+        }
+
+
+    }
+
+    /**
+     * Initialize the processors, the manifest and the dependencies.
+     *
+     * @throws Exception
+     */
+    protected void initialize() throws Exception {
+        getLog().info("initialize");
+//           INIT parameters.
+        final SessionComponents components = SessionComponents.of(session);
+        final ProcessorPool pool = components.pool;
+        final Minify.Builder builder = new Minify.Builder(root).pool(pool);
+        switch (processor) {
+            case "BeautifyJs":
+                builder.toBeautifyJs();
+                break;
+            case "GoogleClosure":
+                builder.toGoogleClosure();
+                break;
+            case "Fast":
+                builder.toFast();
+                break;
+            case "UglifyJs":
+            default:
+                builder.toUglifyJs();
+        }
+        if (sharedCache) {
+            builder.perFile(new ContentCache(MoreObjects.firstNonNull(sharedCacheDirectory,
+                    new File(System.getProperty("user.home"), SHARED_CACHE_DIR)), sharedCacheMaxSize));
+        } else if (perFile) {
+            builder.perFile(new ContentCache(new File(workDirectory(), FILES_CACHE_DIR), sharedCacheMaxSize));
+        }
+        if (sharedCache || perFile) {
+            builder.results(components.results);
+        }
+        minify = builder.build();
+        minifyProcessor = builder.processor;
+        final URL script = (jsxTransformer != null) ? jsxTransformer.toURI().toURL()
+                : Resources.getResource(JsxTransformer.class, JsxTransformer.DEFAULT_SCRIPT);
+        transformer = components.transformer(script, incremental ? new File(workDirectory(), JSX_CACHE_DIR) : null);
+//      the processors are warmed up once by session.
+        if (warmUp && components.warmUp(builder.processor)) {
+            getLog().info("Warm up " + builder.processor);
+            pool.warmUp(builder.processor, threads);
+        }
+        final Concatener.Builder concatenerBuilder = new Concatener.Builder(root);
+        if (concatSeparator != null) {
+            concatenerBuilder.separator(concatSeparator);
+        }
+        if (rawConcat) {
+            concatenerBuilder.raw();
+        }
+        concatener = concatenerBuilder.build();
+        manifest = new BuildManifest(root, new File(workDirectory(), MANIFEST_FILE));
+        dependencies = new DependencyIndex(root, new File(workDirectory(), DEPENDENCIES_FILE));
+//      a full build records all the templates again.
+        dependencies.clear();
+        assets = new AssetManifest(MoreObjects.firstNonNull(assetManifest, new File(workDirectory(), ASSETS_FILE)));
+        filter = new SourceFilter(Paths.get(root), Arrays.asList(MoreObjects.firstNonNull(includes, new String[0])),
+                Arrays.asList(MoreObjects.firstNonNull(excludes, new String[0])));
+        metrics = new BuildMetrics(MoreObjects.firstNonNull(metricsReport, new File(workDirectory(), METRICS_FILE)));
+    }
+
+    /**
+     * Create the handlers of the files.
+     * <p>The templates are rewritten and their bundles registered. The other files are copied.</p>
+     *
+     * @param registry the registry of the bundles.
+     * @return the builder.
+     */
+    protected Template.Builder templates(final BundleRegistry registry) {
+        return new Template.Builder(getExtensions()).filter(filter).threads(threads).notTemplate((n) -> {
 //              If not an template just copy to dest dir.
-                try {
-                    getLog().info("Copy " + n.url);
-                    new WriterManager(root, n.url, destDir).run().copy();
-                } catch (Exception e) {
-                    Throwables.propagate(e);
-                }
-            }).template((t) -> {
-                try {
-                    final ArrayListMultimap<String, String> scripts = t.scripts();
+            try {
+                getLog().info("Copy " + n.url);
+                final long start = System.nanoTime();
+                new WriterManager(root, n.url, destDir).run().copy();
+                metrics.add(BuildMetrics.Phase.copy, start);
+            } catch (Exception e) {
+                Throwables.propagate(e);
+            }
+        }).template((t) -> {
+            try {
+                final long start = System.nanoTime();
+                final ArrayListMultimap<String, String> scripts = t.scripts();
+                metrics.add(BuildMetrics.Phase.parse, start);
 //                  if no annoted scripts.
-                    if (scripts.isEmpty()) {
-                        getLog().info("No Script - Copy " + t.url);
-                        new WriterManager(root, t.url, destDir).run().copy();
+                if (scripts.isEmpty()) {
+                    dependencies.record(t.url, Collections.emptyList());
+                    getLog().info("No Script - Copy " + t.url);
+                    final long copy = System.nanoTime();
+                    new WriterManager(root, t.url, destDir).run().copy();
+                    metrics.add(BuildMetrics.Phase.copy, copy);
+                } else {
+                    getLog().info("Treat " + t.url);
+//                      Copy the modified template, once the bundles are known if they change it.
+                    if (fingerprint || inlineThreshold > 0
+                            || scripts.keySet().stream().anyMatch(k -> Template.Action.inline.equals(t.toAction(k)))) {
+                        pending.add(t.url);
                     } else {
-                        getLog().info("Treat " + t.url);
-//                      Copy the modified template.
-                        new WriterManager(root, t.url, destDir).run().write(t.stream());
-
-                        scripts.keySet().forEach(k -> {
-//                          for each scripts
-                            try {
-                                final String s = root + "/" + k;
-                                if (!t.toAction(k).equals(Template.Action.jsx)) {
-//                              Minify and write to destination directory.
-
-                                    final Template.Action action = t.toAction(k);
-                                    final InputStream stream = getInputStream(minify, concatener, scripts, k, action);
-                                    new WriterManager(root, new File(s).toURI().toURL(), destDir).run().write(stream);
-                                } else {
-                                    final String src = scripts.get(k).iterator().next();
-                                    jsxs.put(k, src);
-                                    final File jsx = new File(JSX_SRC_DIR);
-                                    final String s1 = new File(root).toURI().toString() + "/" + src;
-//                                  Copy to Jsx-source
-                                    new WriterManager(root, new URI(s1).toURL(), jsx.getAbsolutePath()).run().copy();
-                                }
-                            } catch (Exception e) {
-                                Throwables.propagate(e);
-                            }
-                        });
+                        render(t, UnaryOperator.identity(), k -> null);
                     }
-                } catch (Exception e) {
-                    Throwables.propagate(e);
+
+//                      for each scripts, only the first declaration of a bundle is kept.
+                    final List<Bundle> bundles = scripts.keySet().stream()
+                            .map(k -> new Bundle(k, scripts.get(k), t.toAction(k), t.isStyle(k), t.toProcessor(k)))
+                            .collect(Collectors.toList());
+                    bundles.forEach(b -> registry.register(t.url, b));
+                    dependencies.record(t.url, bundles);
                 }
-            })
-                    .traverse(file);
-            final ImmutableMap<String, String> allJsxs = jsxs.build();
-            if (!allJsxs.isEmpty()) {
-                getLog().info("JsxTransformation.");
-                new Jsx.Executable(getLog()).run(new Jsx(JSX_SRC_DIR, JSX_DEST_DIR, jsxBaseDirectory.getAbsolutePath()));
-                final Minify jsxMinify = jsxbuilder.build();
-                allJsxs.keySet().stream().forEach((k) -> {
-                    try {
-                        getLog().info("Minification and copy.");
-
-                        final String dest = root + "/" + k;
-                        final InputStream stream = jsxMinify.stream(Collections.singletonList("/"+ allJsxs.get(k)));
-                        new WriterManager(root, new File(dest).toURI().toURL(), destDir).run().write(stream);
-                    } catch (Exception e) {
-                        Throwables.propagate(e);
-                    }
-                });
+            } catch (Exception e) {
+                Throwables.propagate(e);
+            }
+        });
+    }
 
+    /**
+     * Write a modified template.
+     *
+     * @param template the template.
+     * @param resolver the resolver of the bundle names.
+     * @param inliner  the inlined content of a bundle or null.
+     * @throws Exception
+     */
+    private void render(final Template template, final UnaryOperator<String> resolver,
+                        final Function<String, String> inliner) throws Exception {
+        final long start = System.nanoTime();
+        final WriterManager writer = new WriterManager(root, template.url, destDir).run();
+        writer.write(template.stream(resolver, inliner));
+        metrics.add(BuildMetrics.Phase.render, start);
+        if (gzip) {
+            final long gz = System.nanoTime();
+            writer.gzip(gzipLevel);
+            metrics.add(BuildMetrics.Phase.gzip, gz);
+        }
+    }
+
+    /**
+     * Generate the bundles and the pending templates, and save the manifests, the dependencies and the metrics.
+     *
+     * @param bundles the bundles.
+     * @throws Exception
+     */
+    protected void generate(final Collection<Bundle> bundles) throws Exception {
+        final long start = System.nanoTime();
+        processBundles(bundles);
+        metrics.add(BuildMetrics.Phase.bundles, start);
+        for (URL url = pending.poll(); url != null; url = pending.poll()) {
+            getLog().info("Render " + url);
+            final Template t = Template.template(url);
+            render(t, assets::resolve, inliner(t));
+        }
+        if (fingerprint) {
+            assets.save();
+            for (String name : assets.removeStale()) {
+                getLog().info("Delete " + name);
+                final File stale = new File(destDir, name);
+                java.nio.file.Files.deleteIfExists(stale.toPath());
+                java.nio.file.Files.deleteIfExists(new File(stale.getPath() + WriterManager.GZIP_SUFFIX).toPath());
             }
-            getLog().info("Finish");
-        } catch (MojoExecutionException | MojoFailureException e) {
-            throw e;
-        } catch (Exception ex) {
-            getLog().error("Error in plugin", ex);
-            throw new MojoFailureException("Error ->", ex);
         }
+        manifest.save();
+        dependencies.save();
+        metrics.save();
+        getLog().info("Bundles generated in " + metrics.millis(BuildMetrics.Phase.bundles) + " ms");
+    }
+
+    /**
+     * The inlined contents of the bundles for a template.
+     * <p>The urls of an inlined stylesheet are rebased from the bundle directory on the template directory.</p>
+     *
+     * @param template the template.
+     * @return the inlined content of a bundle, or null.
+     * @throws Exception
+     */
+    private Function<String, String> inliner(final Template template) throws Exception {
+        final String path = new File(root).toURI().relativize(template.url.toURI()).getPath();
+        return k -> {
+            final String content = inlined.get(k);
+            return (content != null && template.isStyle(k)) ? CssUrls.rebase(content, k, path) : content;
+        };
+    }
+
+    /**
+     * Generate the bundles on a bounded pool of workers.
+     * <p>The largest bundles are scheduled first. The errors are reported in the order of the bundle names.</p>
+     *
+     * @param bundles the bundles.
+     * @throws Exception
+     */
+    private void processBundles(final Collection<Bundle> bundles) throws Exception {
+        final Map<Bundle, Long> sizes = Maps.newHashMap();
+        bundles.forEach(b -> sizes.put(b, b.size(root)));
+        final List<Bundle> ordered = bundles.stream()
+                .sorted(Comparator.comparing((Bundle b) -> sizes.get(b)).reversed().thenComparing(b -> b.target))
+                .collect(Collectors.toList());
 
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                new ThreadFactoryBuilder().setNameFormat("minify-%d").setDaemon(true).build());
+        try {
+            final Map<String, Future<?>> futures = Maps.newTreeMap();
+            ordered.forEach(b -> futures.put(b.target, executor.submit(() -> {
+                processBundle(b);
+                return null;
+            })));
 
+            final List<String> errors = Lists.newArrayList();
+            for (Map.Entry<String, Future<?>> e : futures.entrySet()) {
+                try {
+                    e.getValue().get();
+                } catch (ExecutionException ex) {
+                    getLog().error("Error on bundle " + e.getKey(), ex.getCause());
+                    errors.add(e.getKey() + " : " + ex.getCause());
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new MojoFailureException("Error on bundles ->\n" + Joiner.on('\n').join(errors));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Minify and write a bundle to destination directory.
+     *
+     * @param bundle the bundle.
+     * @throws Exception
+     */
+    private void processBundle(final Bundle bundle) throws Exception {
+        final long start = System.nanoTime();
+        final BuildMetrics.BundleMetrics measures = metrics.bundle(bundle);
+        final String s = root + "/" + bundle.target;
+        final boolean inline = Template.Action.inline.equals(bundle.action);
+//      An inline bundle is not deployed, it is kept in the work directory for the next builds.
+        final WriterManager writer = new WriterManager(root, new File(s).toURI().toURL(),
+                inline ? new File(workDirectory(), INLINE_DIR).getPath() : destDir).run();
+        final String digest = manifest.fingerprint(bundle.sources, settings(bundle), bundle.action);
+        final boolean upToDate = incremental && manifest.isUpToDate(bundle.target, digest, writer.file());
+        if (upToDate) {
+            getLog().info("Up to date " + bundle.target);
+        } else {
+            if (rawConcat && Template.Action.concat.equals(bundle.action) && !bundle.style) {
+                writer.transfer(channel -> concatener.transferTo(bundle.sources, channel));
+            } else {
+                writer.write(out -> writeTo(bundle, out));
+            }
+            manifest.update(bundle.target, digest);
+        }
+        measures.generated(start, upToDate, bundle.size(root), writer.file().length());
+        if (Template.Action.delete.equals(bundle.action)) {
+            return;
+        }
+        if (inline || (inlineThreshold > 0 && writer.file().length() <= inlineThreshold
+                && (Template.Action.minify.equals(bundle.action) || Template.Action.concat.equals(bundle.action)))) {
+            inlined.put(bundle.target, Files.asCharSource(writer.file(), Charsets.UTF_8).read());
+            measures.inlined();
+            if (fingerprint) {
+                assets.remove(bundle.target);
+            }
+            return;
+        }
+        inlined.remove(bundle.target);
+        final WriterManager output = fingerprint ? fingerprinted(bundle, writer) : writer;
+        if (gzip) {
+            final long gz = System.nanoTime();
+//          the sibling of a bundle written again is always compressed again, whatever the modification times.
+            final String gzDigest = digest + ":" + gzipLevel;
+            final String gzKey = bundle.target + WriterManager.GZIP_SUFFIX;
+            if (upToDate && manifest.isUpToDate(gzKey, gzDigest, output.gzipFile())) {
+                measures.gzipped(output.gzipFile().length());
+            } else {
+                measures.gzipped(output.gzip(gzipLevel).length());
+                manifest.update(gzKey, gzDigest);
+            }
+            metrics.add(BuildMetrics.Phase.gzip, gz);
+        }
+    }
+
+    /**
+     * Copy a generated bundle under its fingerprinted name.
+     *
+     * @param bundle the bundle.
+     * @param writer the writer of the generated bundle.
+     * @return the writer of the fingerprinted bundle.
+     * @throws Exception
+     */
+    private WriterManager fingerprinted(final Bundle bundle, final WriterManager writer) throws Exception {
+        final String hash = Files.asByteSource(writer.file()).hash(Hashing.sha256()).toString();
+        final String name = AssetManifest.fingerprinted(bundle.target, hash);
+        final WriterManager output = new WriterManager(root, new File(root + "/" + name).toURI().toURL(), destDir).run();
+        if (!output.file().isFile()) {
+            output.write(out -> Files.copy(writer.file(), out));
+        }
+        assets.put(bundle.target, name);
+        return output;
+    }
+
+    /**
+     * The settings which change the output of a bundle.
+     *
+     * @param bundle the bundle.
+     * @return the settings.
+     */
+    private String settings(Bundle bundle) {
+        if (Template.Action.concat.equals(bundle.action)) {
+            return (rawConcat ? "raw" : "text") + ":" + MoreObjects.firstNonNull(concatSeparator, "\n")
+                    + (bundle.style ? ":urls" : "");
+        }
+        if (Template.Action.jsx.equals(bundle.action)) {
+            return processor(bundle) + ":" + MoreObjects.firstNonNull(jsxTransformer, JsxTransformer.DEFAULT_SCRIPT);
+        }
+        return processor(bundle).name() + ((perFile || sharedCache) ? ":perFile" : "") + (bundle.style ? ":urls" : "");
+    }
+
+    /**
+     * The processor of a bundle.
+     *
+     * @param bundle the bundle.
+     * @return the declared processor, else CssCompressor for a stylesheet and the configured processor for a script.
+     */
+    private Minify.Processor processor(Bundle bundle) {
+        if (bundle.processor != null) {
+            return bundle.processor;
+        }
+        return bundle.style ? Minify.Processor.CssCompressor : minifyProcessor;
+    }
+
+    /**
+     * Transform the jsx sources in memory.
+     * <p>The sources are transformed in parallel. An unchanged source is taken from the cache.</p>
+     *
+     * @param sources the jsx sources.
+     * @return the js sources.
+     */
+    private String transform(List<String> sources) {
+        return sources.parallelStream().map(s -> {
+            try {
+                final String js = transformer.transform(Files.asCharSource(new File(root, s), Charsets.UTF_8).read());
+                getLog().info("JsxTransformation " + s);
+                return js;
+            } catch (Exception e) {
+                throw Throwables.propagate(e);
+            }
+        }).collect(Collectors.joining("\n"));
     }
 
-    private InputStream getInputStream(Minify minify, Concatener concatener, ArrayListMultimap<String, String> scripts, String k, Template.Action action) throws Exception {
+    private void writeTo(Bundle bundle, OutputStream out) throws Exception {
+        final Template.Action action = bundle.action;
+        final List<String> sources = bundle.sources;
         switch (action) {
             case minify:
-                return minify.stream(scripts.get(k));
+            case inline:
+                minify.writeTo(sources, processor(bundle), bundle.target, out);
+                break;
             case concat:
-                return concatener.stream(scripts.get(k));
+                concatener.writeTo(sources, bundle.style ? bundle.target : null, out);
+                break;
+            case jsx:
+                Preconditions.checkState(!bundle.style, "No jsx action for the stylesheet %s", bundle.target);
+                final long start = System.nanoTime();
+                final String js = transform(sources);
+                metrics.add(BuildMetrics.Phase.jsx, start);
+                metrics.bundle(bundle).jsx(start);
+                minify.writeTo(CharSource.wrap(js), processor(bundle), out);
+                break;
             case delete:
-                return new ByteArrayInputStream(new byte[0]);
+                break;
             default:
                 throw new IllegalStateException("No action found" + action);
         }
     }
 
+    protected DependencyIndex getDependencies() {
+        return dependencies;
+    }
+
+    protected BuildMetrics getMetrics() {
+        return metrics;
+    }
+
+    protected SourceFilter getFilter() {
+        return filter;
+    }
+
+    protected String getRoot() {
+        return root;
+    }
+
+    protected String getDestDir() {
+        return destDir;
+    }
+
+    protected List<String> getExtensions() {
+        return Lists.newArrayList(MoreObjects.firstNonNull(extensions, new String[]{"html"}));
+    }
+
+    private String workDirectory() {
+        return MoreObjects.firstNonNull(workDirectory, WORK_DIR);
+    }
+
     @VisibleForTesting
     void setRoot(String root) {
         this.root = root;
@@ -215,7 +744,103 @@ public class ScriptMojo extends AbstractMojo {
         this.extensions = extensions;
     }
 
-    public void setJsxBaseDirectory(File jsxBaseDirectory) {
-        this.jsxBaseDirectory = jsxBaseDirectory;
+    @VisibleForTesting
+    void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    @VisibleForTesting
+    void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+
+    @VisibleForTesting
+    void setWorkDirectory(String workDirectory) {
+        this.workDirectory = workDirectory;
+    }
+
+    @VisibleForTesting
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @VisibleForTesting
+    void setRawConcat(boolean rawConcat) {
+        this.rawConcat = rawConcat;
+    }
+
+    @VisibleForTesting
+    void setConcatSeparator(String concatSeparator) {
+        this.concatSeparator = concatSeparator;
+    }
+
+    @VisibleForTesting
+    void setPerFile(boolean perFile) {
+        this.perFile = perFile;
+    }
+
+    @VisibleForTesting
+    void setSharedCache(boolean sharedCache) {
+        this.sharedCache = sharedCache;
+    }
+
+    @VisibleForTesting
+    void setSharedCacheDirectory(File sharedCacheDirectory) {
+        this.sharedCacheDirectory = sharedCacheDirectory;
+    }
+
+    @VisibleForTesting
+    void setSharedCacheMaxSize(long sharedCacheMaxSize) {
+        this.sharedCacheMaxSize = sharedCacheMaxSize;
+    }
+
+    @VisibleForTesting
+    void setSession(Object session) {
+        this.session = session;
+    }
+
+    @VisibleForTesting
+    void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @VisibleForTesting
+    void setFingerprint(boolean fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    @VisibleForTesting
+    void setAssetManifest(File assetManifest) {
+        this.assetManifest = assetManifest;
+    }
+
+    @VisibleForTesting
+    void setMetricsReport(File metricsReport) {
+        this.metricsReport = metricsReport;
+    }
+
+    @VisibleForTesting
+    void setInlineThreshold(long inlineThreshold) {
+        this.inlineThreshold = inlineThreshold;
+    }
+
+    @VisibleForTesting
+    void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    @VisibleForTesting
+    void setGzipLevel(int gzipLevel) {
+        this.gzipLevel = gzipLevel;
+    }
+
+    @VisibleForTesting
+    void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    @VisibleForTesting
+    void setJsxTransformer(File jsxTransformer) {
+        this.jsxTransformer = jsxTransformer;
     }
 }
@@ -0,0 +1,135 @@
+package net.genin.maven.plugin;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Components shared by the executions of a maven session.
+ * <p>In a multi-module build, the modules reuse the initialized processors, the loaded jsx engines and the
+ * minified sources of the previous modules, including in a parallel build. The components are released
+ * with the session.</p>
+ */
+public class SessionComponents {
+
+    /**
+     * Maximum number of chars of the minified sources kept in memory.
+     */
+    public static final long MAX_RESULTS_WEIGHT = 32L * 1024 * 1024;
+
+    /**
+     * Method of the maven session returning the execution request.
+     */
+    private static final String GET_REQUEST = "getRequest";
+
+    /**
+     * the components by session key. The keys are compared by identity.
+     */
+    private static final Cache<Object, SessionComponents> SESSIONS = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * The pool of processor instances.
+     */
+    final ProcessorPool pool = new ProcessorPool();
+
+    /**
+     * The minified sources by cache key, for the per-file mode.
+     */
+    final Cache<String, String> results = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_RESULTS_WEIGHT)
+            .weigher((String k, String v) -> v.length())
+            .build();
+
+    /**
+     * the processors already warmed up.
+     */
+    private final Set<Minify.Processor> warmed = Sets.newConcurrentHashSet();
+
+    /**
+     * the idle jsx engines by script.
+     */
+    private final ConcurrentMap<String, Deque<RhinoScriptBuilder>> engines = Maps.newConcurrentMap();
+
+    /**
+     * The components of a session.
+     * <p>Maven clones the session for each project, so the components are kept by the execution request
+     * shared by the clones.</p>
+     *
+     * @param session the session, or null for components used by one execution.
+     * @return the components.
+     */
+    public static SessionComponents of(final Object session) {
+        if (session == null) {
+            return new SessionComponents();
+        }
+        try {
+            return SESSIONS.get(key(session), SessionComponents::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The key of a session.
+     *
+     * @param session the session.
+     * @return its execution request, or the session itself without request.
+     */
+    @VisibleForTesting
+    static Object key(final Object session) {
+        try {
+            final Method method = session.getClass().getMethod(GET_REQUEST);
+            final Object request = method.invoke(session);
+            return (request == null) ? session : request;
+        } catch (NoSuchMethodException e) {
+            return session;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Test if a processor must be warmed up, once by session.
+     *
+     * @param processor the processor.
+     * @return true the first time.
+     */
+    public boolean warmUp(final Minify.Processor processor) {
+        return warmed.add(processor);
+    }
+
+    /**
+     * Create a jsx transformer sharing the engines of the session.
+     *
+     * @param script the JSXTransformer script.
+     * @param cache  the cache directory, or null for no cache.
+     * @return the transformer.
+     */
+    public JsxTransformer transformer(final URL script, final File cache) {
+        return new JsxTransformer(script, cache,
+                engines.computeIfAbsent(script.toString(), s -> new ConcurrentLinkedDeque<>()));
+    }
+
+    /**
+     * The number of idle jsx engines of a script.
+     *
+     * @param script the JSXTransformer script.
+     * @return the number.
+     */
+    @VisibleForTesting
+    int idleEngines(final URL script) {
+        return engines.getOrDefault(script.toString(), new ConcurrentLinkedDeque<>()).size();
+    }
+}
@@ -0,0 +1,126 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Filter of the files of the root directory by include and exclude globs.
+ * <p>The globs are matched against the path relative to the root directory, with <em>/</em> separators,
+ * as <em>**&#47;node_modules/**</em> or <em>vendor/*.js</em>. A leading <em>**&#47;</em> also matches at
+ * the root. A directory matched by an exclude glob, or by an exclude glob ending with <em>/**</em>, is
+ * not traversed. The globs are compiled once.</p>
+ */
+public class SourceFilter {
+
+    private static final String ANY_DIR = "**/";
+    private static final String ANY_CONTENT = "/**";
+
+    /**
+     * the root directory.
+     */
+    private final Path root;
+
+    private final List<PathMatcher> includes;
+
+    private final List<PathMatcher> excludes;
+
+    /**
+     * the matchers of the excluded directories.
+     */
+    private final List<PathMatcher> excludedDirs;
+
+    /**
+     * Constructor.
+     *
+     * @param root     the root directory.
+     * @param includes the include globs. All the files are included when empty.
+     * @param excludes the exclude globs.
+     */
+    public SourceFilter(final Path root, final Collection<String> includes, final Collection<String> excludes) {
+        Preconditions.checkNotNull(root);
+        Preconditions.checkNotNull(includes);
+        Preconditions.checkNotNull(excludes);
+        this.root = root.toAbsolutePath().normalize();
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        final ImmutableList.Builder<String> dirs = ImmutableList.builder();
+        excludes.forEach(e -> {
+            dirs.add(e);
+            if (e.endsWith(ANY_CONTENT)) {
+                dirs.add(e.substring(0, e.length() - ANY_CONTENT.length()));
+            }
+        });
+        this.excludedDirs = compile(dirs.build());
+    }
+
+    /**
+     * Test if a directory must be traversed.
+     *
+     * @param dir the directory.
+     * @return false for an excluded directory.
+     */
+    public boolean traverse(final Path dir) {
+        final Path relative = relativize(dir);
+        return relative == null || relative.toString().isEmpty() || !matches(excludedDirs, relative);
+    }
+
+    /**
+     * Test if a file is accepted.
+     *
+     * @param file the file.
+     * @return true if it is included and not excluded.
+     */
+    public boolean accept(final Path file) {
+        final Path relative = relativize(file);
+        if (relative == null) {
+            return true;
+        }
+        if (!includes.isEmpty() && !matches(includes, relative)) {
+            return false;
+        }
+        if (matches(excludes, relative)) {
+            return false;
+        }
+//      a file of an excluded directory.
+        for (Path p = relative.getParent(); p != null; p = p.getParent()) {
+            if (matches(excludedDirs, p)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path relativize(final Path path) {
+        final Path absolute = path.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root)) {
+            return null;
+        }
+        return root.relativize(absolute);
+    }
+
+    private static boolean matches(final List<PathMatcher> matchers, final Path relative) {
+        for (PathMatcher m : matchers) {
+            if (m.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> compile(final Collection<String> globs) {
+        final ImmutableList.Builder<PathMatcher> matchers = ImmutableList.builder();
+        for (String g : globs) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + g));
+            if (g.startsWith(ANY_DIR)) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + g.substring(ANY_DIR.length())));
+            }
+        }
+        return matchers.build();
+    }
+}
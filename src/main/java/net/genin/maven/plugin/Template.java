@@ -1,33 +1,65 @@
 package net.genin.maven.plugin;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
+import com.google.common.base.Charsets;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.htmlcleaner.BaseToken;
 import org.htmlcleaner.CleanerProperties;
 import org.htmlcleaner.CompactHtmlSerializer;
+import org.htmlcleaner.ContentNode;
 import org.htmlcleaner.HtmlCleaner;
 import org.htmlcleaner.TagNode;
+import org.htmlcleaner.Utils;
 
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * Template Manager for HTML.
- * <p>This class ar used for filtering the template files and re writing <em>script</em> tags.</p>
+ * <p>This class ar used for filtering the template files and re writing <em>script</em> and stylesheet
+ * <em>link</em> tags.</p>
  */
 public abstract class Template {
 
-
     public static final String DATA_ACTION_ATTR = "data-action-min";
+    public static final String DATA_PROCESSOR_ATTR = "data-processor-min";
+
+    /**
+     * Size of the blocks read when scanning a template.
+     */
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
     /**
      * Url of the file.
      */
@@ -41,7 +73,6 @@ public abstract class Template {
      */
     abstract ArrayListMultimap<String, String> scripts();
 
-
     /**
      * Open an stream which contains the resulted template.
      *
@@ -49,8 +80,50 @@ public abstract class Template {
      */
     abstract InputStream stream();
 
+    /**
+     * Open an stream which contains the resulted template with the bundle names resolved.
+     *
+     * @param resolver the resolver of the bundle names, for example to their fingerprinted names.
+     * @return the stream.
+     */
+    InputStream stream(UnaryOperator<String> resolver) {
+        return stream(resolver, k -> null);
+    }
+
+    /**
+     * Open an stream which contains the resulted template with the bundle names resolved and the
+     * contents of some bundles inlined.
+     *
+     * @param resolver the resolver of the bundle names, for example to their fingerprinted names.
+     * @param inliner  the content to inline for a bundle, or null for a tag referring to the bundle.
+     * @return the stream.
+     */
+    InputStream stream(UnaryOperator<String> resolver, Function<String, String> inliner) {
+        return stream();
+    }
+
     abstract Action toAction(final String key);
 
+    /**
+     * Test if a bundle is a stylesheet bundle.
+     *
+     * @param key the bundle.
+     * @return true for a <em>data-style-min</em> bundle.
+     */
+    boolean isStyle(final String key) {
+        return false;
+    }
+
+    /**
+     * The processor declared for a bundle.
+     *
+     * @param key the bundle.
+     * @return the processor of the <em>data-processor-min</em> attribute, or null for the configured one.
+     */
+    Minify.Processor toProcessor(final String key) {
+        return null;
+    }
+
     /**
      * Constructor.
      *
@@ -69,15 +142,84 @@ public abstract class Template {
         void handle(Template template);
     }
 
+    /**
+     * Search ASCII markers in a stream, ignoring the case.
+     *
+     * @param in      the stream.
+     * @param markers the lower case markers.
+     * @return true if a marker is found.
+     * @throws IOException
+     */
+    @VisibleForTesting
+    static boolean contains(final InputStream in, final byte[]... markers) throws IOException {
+        int keep = 0;
+        for (byte[] marker : markers) {
+            keep = Math.max(keep, marker.length - 1);
+        }
+//          the end of a block is kept, for a marker across two blocks.
+        final byte[] buffer = new byte[SCAN_BUFFER_SIZE + keep];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) > 0) {
+            length += read;
+            if (indexOf(buffer, length, markers) >= 0) {
+                return true;
+            }
+            final int kept = Math.min(keep, length);
+            System.arraycopy(buffer, length - kept, buffer, 0, kept);
+            length = kept;
+        }
+        return false;
+    }
+
+    /**
+     * Search ASCII markers in a buffer, ignoring the case.
+     *
+     * @param buffer  the buffer.
+     * @param length  the number of bytes of the buffer.
+     * @param markers the lower case markers.
+     * @return the position of the first marker found or -1.
+     */
+    private static int indexOf(final byte[] buffer, final int length, final byte[]... markers) {
+        for (int i = 0; i < length; i++) {
+            for (byte[] marker : markers) {
+                int j = 0;
+                while (j < marker.length && i + j < length
+                        && Ascii.toLowerCase((char) buffer[i + j]) == marker[j]) {
+                    j++;
+                }
+                if (j == marker.length) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create the template of a file. It is parsed when read.
+     *
+     * @param url the url of the file.
+     * @return the template.
+     */
+    public static Template template(final URL url) {
+        Preconditions.checkNotNull(url);
+        return new TemplateScripts(url);
+    }
+
     /**
      * Builder for processing the templates.
      */
     public static class Builder {
 
         /**
-         * List of authorized extension.
+         * Set of authorized extension.
          */
-        private final List<String> patterfiles;
+        private final Set<String> patterfiles;
+        /**
+         * Filter of the traversed files.
+         */
+        private SourceFilter filter;
         /**
          * Processor for not template files.
          */
@@ -86,6 +228,10 @@ public abstract class Template {
          * Processor for template files.
          */
         private Handler template;
+        /**
+         * Number of workers for the handlers.
+         */
+        private int threads = 1;
 
         /**
          * Constructor.
@@ -94,7 +240,19 @@ public abstract class Template {
          */
         public Builder(List<String> patterfiles) {
             Preconditions.checkNotNull(patterfiles);
-            this.patterfiles = patterfiles;
+            this.patterfiles = ImmutableSet.copyOf(patterfiles);
+        }
+
+        /**
+         * Filter the traversed files. The excluded directories are not traversed.
+         *
+         * @param filter the filter.
+         * @return the builder.
+         */
+        public Builder filter(SourceFilter filter) {
+            Preconditions.checkNotNull(filter);
+            this.filter = filter;
+            return this;
         }
 
         /**
@@ -128,40 +286,121 @@ public abstract class Template {
          * @return true if it is.
          */
         private boolean isTemplate(final File f) {
-            final String fileExtension = Files.getFileExtension(f.getAbsolutePath());
-            return patterfiles.stream().map(p -> p.equals(fileExtension)).filter(b -> b).count() > 0;
+            return patterfiles.contains(Files.getFileExtension(f.getName()));
+        }
 
+        /**
+         * Specify the number of workers for handling the files.
+         *
+         * @param threads the number of workers.
+         * @return the builder.
+         */
+        public Builder threads(int threads) {
+            this.threads = Math.max(1, threads);
+            return this;
         }
 
         /**
          * travel the tree files.
+         * <p>The files are streamed to the handlers while walking the tree. With more than one worker,
+         * the handlers are called in parallel and at most two files by worker are pending.</p>
+         * <p>The directories excluded by the filter are skipped without being walked.</p>
          *
          * @param root the root directory URL.
          * @throws Exception
          */
         public void traverse(final URL root) throws Exception {
-            Lists.newArrayList(Files.fileTreeTraverser()
-                    .breadthFirstTraversal(new File(root.toURI()))).stream()
-//                   Not directory
-                    .filter(File::isFile)
-//                  Call Handlers
-                    .forEach(f -> {
+            final Path start = Paths.get(root.toURI());
+            if (threads <= 1) {
+                walk(start, p -> {
+                    handle(p.toFile());
+                    return true;
+                });
+                return;
+            }
+
+            final int permits = threads * 2;
+            final Semaphore slots = new Semaphore(permits);
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("template-%d").setDaemon(true).build());
+            try {
+                walk(start, p -> {
+                    slots.acquireUninterruptibly();
+                    if (error.get() != null) {
+                        slots.release();
+                        return false;
+                    }
+                    executor.execute(() -> {
                         try {
-                            final URL url1 = f.toURI().toURL();
-
-                            if (isTemplate(f)) {
-                                MoreObjects.firstNonNull(template, h -> {
-                                }).handle(new TemplateScripts(url1));
-                            } else {
-                                MoreObjects.firstNonNull(notTemplate, h -> {
-                                }).handle(new NotTemplate(url1));
-                            }
+                            handle(p.toFile());
+                        } catch (Throwable e) {
+//                          errors included, else the build would succeed without the outputs.
+                            error.compareAndSet(null, e);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                    return true;
+                });
+                slots.acquireUninterruptibly(permits);
+            } finally {
+                executor.shutdownNow();
+            }
+            final Throwable e = error.get();
+            if (e != null) {
+                Throwables.throwIfInstanceOf(e, Exception.class);
+                Throwables.throwIfUnchecked(e);
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Walk the tree and send the regular files to the visitor.
+         *
+         * @param start   the root directory.
+         * @param visitor the visitor. It returns false for stopping the walk.
+         * @throws IOException
+         */
+        private void walk(final Path start, final Predicate<Path> visitor) throws IOException {
+            java.nio.file.Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                    new SimpleFileVisitor<Path>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                            return (filter == null || filter.traverse(dir)) ? FileVisitResult.CONTINUE
+                                    : FileVisitResult.SKIP_SUBTREE;
+                        }
 
-                        } catch (MalformedURLException e) {
-                            e.printStackTrace();
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                            if (!attrs.isRegularFile() || (filter != null && !filter.accept(file))) {
+                                return FileVisitResult.CONTINUE;
+                            }
+                            return visitor.test(file) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
                         }
                     });
+        }
+
+        /**
+         * Call the handler for a file.
+         *
+         * @param f the file.
+         */
+        void handle(final File f) {
+            try {
+                final URL url1 = f.toURI().toURL();
+
+                if (isTemplate(f)) {
+                    MoreObjects.firstNonNull(template, h -> {
+                    }).handle(new TemplateScripts(url1));
+                } else {
+                    MoreObjects.firstNonNull(notTemplate, h -> {
+                    }).handle(new NotTemplate(url1));
+                }
 
+            } catch (MalformedURLException e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -178,7 +417,7 @@ public abstract class Template {
     }
 
     public static enum Action {
-        minify, concat, delete, copy, jsx;
+        minify, concat, delete, copy, jsx, inline;
     }
 
     /**
@@ -190,16 +429,47 @@ public abstract class Template {
          */
         public static final String DATA_ATTR = "data-script-min";
         /**
-         * the minified content.
+         * The attribute which contains the relative path of the minified stylesheets.
+         */
+        public static final String DATA_STYLE_ATTR = "data-style-min";
+        /**
+         * The attributes as bytes for scanning the files.
          */
-        private byte[] datas;
+        private static final byte[][] MARKERS = {
+                DATA_ATTR.getBytes(Charsets.US_ASCII),
+                DATA_STYLE_ATTR.getBytes(Charsets.US_ASCII)
+        };
+        /**
+         * the parsed template without the annotated scripts.
+         */
+        private TagNode clean;
+
+        /**
+         * the added bundle tags by bundle name.
+         */
+        private final ArrayListMultimap<String, TagNode> bundleTags = ArrayListMultimap.create();
+
+        /**
+         * the parent of each bundle tag.
+         */
+        private final Map<TagNode, TagNode> parents = Maps.newIdentityHashMap();
 
         private Map<String, Action> actions = Maps.newConcurrentMap();
 
         /**
-         * the instance of HtmlCleaner.
+         * the declared processors by bundle.
+         */
+        private final Map<String, Minify.Processor> processors = Maps.newConcurrentMap();
+
+        /**
+         * the stylesheet bundles.
+         */
+        private final Set<String> styles = Sets.newConcurrentHashSet();
+
+        /**
+         * the instance of HtmlCleaner by thread. An HtmlCleaner can not be shared between threads.
          */
-        private static final HtmlCleaner HTML_CLEANER = factoryHtmlCleaner();
+        private static final ThreadLocal<HtmlCleaner> HTML_CLEANER = ThreadLocal.withInitial(Template::factoryHtmlCleaner);
 
         /**
          * Constructor.
@@ -228,84 +498,295 @@ public abstract class Template {
             return actions.get(key);
         }
 
+        @Override
+        boolean isStyle(final String key) {
+            return styles.contains(key);
+        }
+
+        @Override
+        Minify.Processor toProcessor(final String key) {
+            return processors.get(key);
+        }
+
         /**
          * {@inheritDoc}
+         * <p>A template without the attributes is not parsed. The template is read when the stream is opened.</p>
          */
         @Override
         ArrayListMultimap<String, String> scripts() {
+            if (!mayContainMarker()) {
+                return ArrayListMultimap.create();
+            }
+            return parse();
+        }
+
+        /**
+         * Scan the bytes of the file for the attributes.
+         * <p>The file is read by blocks of a fixed size and closed at once, it is not mapped: a mapped file
+         * stays locked on Windows until the garbage collection.</p>
+         *
+         * @return false if the file does not contain any attribute.
+         */
+        private boolean mayContainMarker() {
+            try (InputStream in = url.openStream()) {
+                return contains(in, MARKERS);
+            } catch (Exception ex) {
+                Throwables.propagate(ex);
+            }
+            return true;
+        }
+
+        /**
+         * Parse the template.
+         * <p>The template is parsed once. The annotated scripts are removed and the bundle tags are added
+         * to the body in the same pass. The tree is kept and serialized when the stream is opened.</p>
+         *
+         * @return the minify js script and the concatening js sources.
+         */
+        private ArrayListMultimap<String, String> parse() {
             final ArrayListMultimap<String, String> results = ArrayListMultimap.create();
+            bundleTags.clear();
+            parents.clear();
 
             try {
-                final TagNode clean = HTML_CLEANER.clean(url);
+                final HtmlCleaner cleaner = HTML_CLEANER.get();
+                clean = cleaner.clean(url);
+                final List<TagNode> bodies = Lists.newArrayList();
+                final List<TagNode> heads = Lists.newArrayList();
                 clean.traverse((parentNode, htmlNode) -> {
+                    if (htmlNode instanceof TagNode && isBody((TagNode) htmlNode)) {
+                        bodies.add((TagNode) htmlNode);
+                    }
+                    if (htmlNode instanceof TagNode && isHead((TagNode) htmlNode)) {
+                        heads.add((TagNode) htmlNode);
+                    }
+                    if (htmlNode instanceof TagNode
+                            && isStylesheet((TagNode) htmlNode)
+                            && ((TagNode) htmlNode).hasAttribute(DATA_STYLE_ATTR)) {
+                        final String dest = ((TagNode) htmlNode).getAttributeByName(DATA_STYLE_ATTR);
+                        styles.add(dest);
+                        collect(results, dest, (TagNode) htmlNode, "href", true);
+                        parentNode.removeChild(htmlNode);
+                    }
                     if (htmlNode instanceof TagNode
                             && isScript((TagNode) htmlNode)
                             && ownAttribute((TagNode) htmlNode)) {
 
-
                         final String dest = ((TagNode) htmlNode).getAttributeByName(DATA_ATTR);
-                        final Action action = Optional.of((TagNode) htmlNode).filter((n) -> action(n))
-                                .map((n) -> Action.valueOf(n.getAttributeByName(DATA_ACTION_ATTR))).orElse(Action.minify);
-                        if (!actions.containsKey(dest)) {
-                            actions.put(dest, action);
-                        }
-
-                        if (!Action.delete.equals(action)) {
-                            results.put(dest,
-                                    ((TagNode) htmlNode).getAttributeByName("src"));
-                        }
-
-
+                        collect(results, dest, (TagNode) htmlNode, "src", false);
                         parentNode.removeChild(htmlNode);
                     }
                     return true;
                 });
-                CompactHtmlSerializer serializer =
-                        new CompactHtmlSerializer(HTML_CLEANER.getProperties());
-
-                final ByteArrayOutputStream out = new ByteArrayOutputStream();
-                serializer.writeToStream(clean, out);
-                datas = out.toByteArray();
 
                 if (!results.isEmpty()) {
-                    addingMinifyScripts(results, serializer);
+                    normalizeContents(clean);
+                    bodies.forEach(b -> addingMinifyScripts(results, b));
+                    (heads.isEmpty() ? bodies : heads).forEach(h -> addingMinifyStyles(results, h));
                 }
-
             } catch (Exception ex) {
                 Throwables.propagate(ex);
             }
             return results;
         }
 
+        /**
+         * Collect the source of an annotated tag.
+         *
+         * @param results   the sources by bundle.
+         * @param dest      the bundle.
+         * @param tagNode   the tag.
+         * @param attribute the attribute of the source.
+         * @param style     true for a stylesheet.
+         */
+        private void collect(final ArrayListMultimap<String, String> results, final String dest,
+                             final TagNode tagNode, final String attribute, final boolean style) {
+            final Action action = Optional.of(tagNode).filter((n) -> action(n))
+                    .map((n) -> Action.valueOf(n.getAttributeByName(DATA_ACTION_ATTR))).orElse(Action.minify);
+            if (!actions.containsKey(dest)) {
+                actions.put(dest, action);
+            }
+            if (tagNode.hasAttribute(DATA_PROCESSOR_ATTR)) {
+                processors.putIfAbsent(dest, processor(tagNode.getAttributeByName(DATA_PROCESSOR_ATTR), dest, style));
+            }
+
+            if (!Action.delete.equals(action)) {
+                results.put(dest, tagNode.getAttributeByName(attribute));
+            }
+        }
+
+        /**
+         * The processor named by a <em>data-processor-min</em> attribute.
+         *
+         * @param name  the name, the case is ignored.
+         * @param dest  the bundle.
+         * @param style true for a stylesheet.
+         * @return the processor.
+         * @throws IllegalArgumentException for an unknown processor or a processor of the other kind of bundle.
+         */
+        private Minify.Processor processor(final String name, final String dest, final boolean style) {
+            final List<Minify.Processor> expected = Arrays.stream(Minify.Processor.values())
+                    .filter(p -> p.style() == style)
+                    .collect(Collectors.toList());
+            return expected.stream()
+                    .filter(p -> p.name().equalsIgnoreCase(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Invalid %s=\"%s\" for the %s bundle %s in %s, expected one of %s",
+                            DATA_PROCESSOR_ATTR, name, style ? "style" : "script", dest, url, expected)));
+        }
+
+        /**
+         * Normalize the text nodes as the compact serializer writes them.
+         * <p>The adjacent text nodes are merged and each text is replaced by its compact form. The bundle
+         * tags are then added to the same tree as the one obtained by parsing again the serialized template
+         * without the annotated scripts.</p>
+         *
+         * @param node the node.
+         */
+        private void normalizeContents(final TagNode node) {
+            if ("pre".equalsIgnoreCase(node.getName())) {
+                return;
+            }
+            final List<? extends BaseToken> all = node.getAllChildren();
+            final List<BaseToken> children = Lists.newArrayList();
+            int i = 0;
+            while (i < all.size()) {
+                final BaseToken child = all.get(i);
+                if (child instanceof ContentNode) {
+//                  The end tokens are not serialized, the texts around them are merged.
+                    final StringBuilder text = new StringBuilder();
+                    while (i < all.size() && !(all.get(i) instanceof TagNode)) {
+                        if (all.get(i) instanceof ContentNode) {
+                            text.append(compact(((ContentNode) all.get(i)).getContent(),
+                                    (i + 1 < all.size()) ? all.get(i + 1) : null));
+                        } else {
+                            children.add(all.get(i));
+                        }
+                        i++;
+                    }
+                    children.add(new ContentNode(text.toString()));
+                } else {
+                    if (child instanceof TagNode) {
+                        normalizeContents((TagNode) child);
+                    }
+                    children.add(child);
+                    i++;
+                }
+            }
+            node.setChildren(children);
+        }
+
+        /**
+         * The compact form of a text.
+         *
+         * @param content the text.
+         * @param next    the next sibling or null.
+         * @return the text as written by the compact serializer.
+         */
+        private static String compact(final String content, final BaseToken next) {
+            final StringBuilder text = new StringBuilder();
+            final String trimmed = content.trim();
+            if (content.length() > 0 && Character.isWhitespace(content.charAt(0))) {
+                text.append(' ');
+            }
+            if (!trimmed.isEmpty()) {
+                text.append(trimmed);
+                if (content.length() > 1 && Character.isWhitespace(content.charAt(content.length() - 1))) {
+                    text.append(' ');
+                }
+            }
+            if (next != null && !Utils.isWhitespaceString(next)) {
+                text.append('\n');
+            }
+            return text.toString();
+        }
+
         /**
          * add the minify tags.
          *
-         * @param scripts    the script map.
-         * @param serializer the serializer
-         * @throws IOException
+         * @param scripts the script map.
+         * @param body    the body tag.
          */
-        private void addingMinifyScripts(final ArrayListMultimap<String, String> scripts, final CompactHtmlSerializer serializer) throws IOException {
-            final TagNode cleanForAddingScripts = HTML_CLEANER.clean(stream());
-            cleanForAddingScripts.traverse((parentNode, htmlNode) -> {
-                if (htmlNode instanceof TagNode
-                        && isBody((TagNode) htmlNode)) {
-                    scripts.keySet().forEach(
-                            k -> {
-                                if (!Action.delete.equals(toAction(k))) {
-                                    final TagNode script = new TagNode("script");
-                                    script.addAttribute("type", "application/javascript");
-                                    script.addAttribute("src", k);
-                                    ((TagNode) htmlNode).addChild(script);
-                                }
-                            }
-                    );
+        private void addingMinifyScripts(final ArrayListMultimap<String, String> scripts, final TagNode body) {
+            scripts.keySet().forEach(
+                    k -> {
+                        if (!isStyle(k) && !Action.delete.equals(toAction(k))) {
+                            final TagNode script = bundleTag(k, k, null);
+                            body.addChild(script);
+                            bundleTags.put(k, script);
+                            parents.put(script, body);
+                        }
+                    }
+            );
+        }
+
+        /**
+         * add the stylesheet tags.
+         *
+         * @param styles the stylesheet map.
+         * @param head   the head tag.
+         */
+        private void addingMinifyStyles(final ArrayListMultimap<String, String> styles, final TagNode head) {
+            styles.keySet().forEach(
+                    k -> {
+                        if (isStyle(k) && !Action.delete.equals(toAction(k))) {
+                            final TagNode link = bundleTag(k, k, null);
+                            head.addChild(link);
+                            bundleTags.put(k, link);
+                            parents.put(link, head);
+                        }
+                    }
+            );
+        }
 
+        /**
+         * Create the tag of a bundle.
+         *
+         * @param key     the bundle.
+         * @param name    the resolved name of the bundle.
+         * @param content the content to inline or null.
+         * @return the <em>script</em>, <em>link</em> or <em>style</em> tag.
+         */
+        private TagNode bundleTag(final String key, final String name, final String content) {
+            final boolean style = isStyle(key);
+            if (content == null) {
+                final TagNode tag = new TagNode(style ? "link" : "script");
+                if (style) {
+                    tag.addAttribute("rel", "stylesheet");
+                    tag.addAttribute("type", "text/css");
+                    tag.addAttribute("href", name);
+                } else {
+                    tag.addAttribute("type", "application/javascript");
+                    tag.addAttribute("src", name);
                 }
-                return true;
-            });
-            final ByteArrayOutputStream outForAddingScripts = new ByteArrayOutputStream();
-            serializer.writeToStream(cleanForAddingScripts, outForAddingScripts);
-            datas = outForAddingScripts.toByteArray();
+                return tag;
+            }
+            final TagNode tag = new TagNode(style ? "style" : "script");
+            tag.addAttribute("type", style ? "text/css" : "application/javascript");
+//          The content must not close the tag.
+            tag.addChild(new ContentNode(content.replaceAll("(?i)</(" + tag.getName() + ")", "<\\\\/$1")));
+            return tag;
+        }
+
+        /**
+         * Test if it's head tag.
+         *
+         * @param htmlNode the tag node.
+         * @return true if it's head tag.
+         */
+        private boolean isHead(TagNode htmlNode) {
+            return "head".equals(htmlNode.getName());
+        }
+
+        /**
+         * Test if it's a stylesheet link tag.
+         *
+         * @param htmlNode the tag node.
+         * @return true if it's a stylesheet link.
+         */
+        private boolean isStylesheet(TagNode htmlNode) {
+            return "link".equals(htmlNode.getName()) && "stylesheet".equalsIgnoreCase(htmlNode.getAttributeByName("rel"));
         }
 
         /**
@@ -325,7 +806,41 @@ public abstract class Template {
          */
         @Override
         InputStream stream() {
-            return new ByteArrayInputStream(datas);
+            return stream(UnaryOperator.identity());
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>The template is serialized with new bundle tags, referring to the resolved names or
+         * containing the inlined contents.</p>
+         */
+        @Override
+        synchronized InputStream stream(final UnaryOperator<String> resolver, final Function<String, String> inliner) {
+            Preconditions.checkNotNull(resolver);
+            Preconditions.checkNotNull(inliner);
+            if (clean == null) {
+                parse();
+            }
+            try {
+                for (String k : bundleTags.keySet()) {
+                    final List<TagNode> tags = bundleTags.get(k);
+                    for (int i = 0; i < tags.size(); i++) {
+                        final TagNode tag = tags.get(i);
+                        final TagNode replacement = bundleTag(k, resolver.apply(k), inliner.apply(k));
+                        final TagNode parent = parents.remove(tag);
+                        parent.insertChildBefore(tag, replacement);
+                        parent.removeChild(tag);
+                        tags.set(i, replacement);
+                        parents.put(replacement, parent);
+                    }
+                }
+                final CompactHtmlSerializer serializer = new CompactHtmlSerializer(HTML_CLEANER.get().getProperties());
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                serializer.writeToStream(clean, out);
+                return new ByteArrayInputStream(out.toByteArray());
+            } catch (Exception ex) {
+                throw Throwables.propagate(ex);
+            }
         }
 
         /**
@@ -0,0 +1,202 @@
+package net.genin.maven.plugin;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mojo for minifying js scripts on each change of the root directory.
+ * <p>The processors stay initialized between two builds. After a change, only the changed files,
+ * the changed templates and the bundles of the changed sources, found in the dependency index,
+ * are generated again.</p>
+ *
+ * @goal minify-watch
+ */
+public class WatchMojo extends ScriptMojo {
+
+    /**
+     * Quiet period in milliseconds after a change before rebuilding.
+     *
+     * @parameter default-value="300"
+     */
+    private long debounce = 300;
+
+    /**
+     * the current watch service.
+     */
+    private volatile WatchService watchService;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            watchService = service;
+            initialize();
+            final Path root = root();
+            register(service, root);
+
+            getLog().info("Launch ...");
+            final BundleRegistry registry = new BundleRegistry();
+            final long start = System.nanoTime();
+            templates(registry).traverse(root.toUri().toURL());
+            getMetrics().add(BuildMetrics.Phase.traversal, start);
+            generate(registry.bundles());
+
+            getLog().info("Watching " + root);
+            while (true) {
+                rebuild(next(service));
+            }
+        } catch (ClosedWatchServiceException e) {
+            getLog().info("Stop watching");
+        } catch (InterruptedException e) {
+            getLog().info("Stop watching");
+            Thread.currentThread().interrupt();
+        } catch (MojoExecutionException | MojoFailureException e) {
+            throw e;
+        } catch (Exception ex) {
+            getLog().error("Error in plugin", ex);
+            throw new MojoFailureException("Error ->", ex);
+        }
+    }
+
+    /**
+     * Stop watching.
+     *
+     * @throws IOException
+     */
+    void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Wait for the next changes.
+     * <p>The changes are gathered until no change happens during the debounce period.</p>
+     *
+     * @param service the watch service.
+     * @return the changed paths.
+     * @throws Exception
+     */
+    private Set<Path> next(final WatchService service) throws Exception {
+        final Set<Path> changes = Sets.newLinkedHashSet();
+        final Path dest = Paths.get(getDestDir()).toAbsolutePath().normalize();
+        WatchKey key = service.take();
+        do {
+            final Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (StandardWatchEventKinds.OVERFLOW.equals(event.kind())) {
+//                  Some events are lost, the whole tree is treated.
+                    changes.add(root());
+                    continue;
+                }
+                final Path path = dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+                if (path.startsWith(dest)) {
+                    continue;
+                }
+//              the excluded files and directories are not watched.
+                if (!(Files.isDirectory(path) ? getFilter().traverse(path) : getFilter().accept(path))) {
+                    continue;
+                }
+                if (StandardWatchEventKinds.ENTRY_CREATE.equals(event.kind()) && Files.isDirectory(path)) {
+                    register(service, path);
+                }
+                changes.add(path);
+            }
+            key.reset();
+            key = service.poll(debounce, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        return changes;
+    }
+
+    /**
+     * Treat the changed files and generate the impacted bundles.
+     * <p>An error is logged and does not stop the watch.</p>
+     *
+     * @param changes the changed paths.
+     */
+    private void rebuild(final Set<Path> changes) {
+        try {
+            getLog().info("Changes : " + changes);
+            getMetrics().reset();
+            final long start = System.nanoTime();
+            final BundleRegistry registry = new BundleRegistry();
+            final Template.Builder templates = templates(registry);
+            for (Path p : changes) {
+                if (Files.isDirectory(p)) {
+                    templates.traverse(p.toUri().toURL());
+                } else if (Files.isRegularFile(p)) {
+                    templates.handle(p.toFile());
+                } else {
+                    getDependencies().record(p.toUri().toURL(), Collections.emptyList());
+                }
+            }
+
+            final Map<String, Bundle> impacted = Maps.newTreeMap();
+            registry.bundles().forEach(b -> impacted.put(b.target, b));
+            getDependencies().bundles(changes).forEach(b -> impacted.putIfAbsent(b.target, b));
+//          The templates of the impacted bundles may refer to their new names or contents.
+            for (String t : getDependencies().templates(impacted.values())) {
+                final Path template = root().resolve(t);
+                if (!changes.contains(template)) {
+                    templates.handle(template.toFile());
+                }
+            }
+            getMetrics().add(BuildMetrics.Phase.traversal, start);
+            getLog().info(impacted.size() + " bundles.");
+            generate(impacted.values());
+            getLog().info("Finish");
+        } catch (Exception ex) {
+            getLog().error("Error on rebuild", ex);
+        }
+    }
+
+    /**
+     * Register a directory and its sub directories.
+     *
+     * @param service the watch service.
+     * @param start   the directory.
+     * @throws IOException
+     */
+    private void register(final WatchService service, final Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!getFilter().traverse(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Path root() {
+        return Paths.get(getRoot()).toAbsolutePath().normalize();
+    }
+
+    @VisibleForTesting
+    void setDebounce(long debounce) {
+        this.debounce = debounce;
+    }
+}
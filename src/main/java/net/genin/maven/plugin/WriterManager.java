@@ -1,19 +1,45 @@
 package net.genin.maven.plugin;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Writers for copy, mkdirs.
  */
 public class WriterManager {
 
+    /**
+     * Size of the write buffer.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Suffix of the gzip siblings.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
     private final String root;
 
     private final URL file;
@@ -44,8 +70,127 @@ public class WriterManager {
 
     public void write(final InputStream inputStream) throws Exception {
         Preconditions.checkNotNull(inputStream);
+        try (InputStream in = inputStream) {
+            write(out -> ByteStreams.copy(in, out));
+        }
+    }
+
+    /**
+     * Write the destination file from a sink.
+     * <p>The sink writes in a temporary file of the destination directory which is renamed at the end.
+     * The destination file is never partially written.</p>
+     *
+     * @param sink the sink.
+     * @throws Exception
+     */
+    public void write(final Sink sink) throws Exception {
+        Preconditions.checkNotNull(sink);
+        transfer(channel -> {
+            try (OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+                sink.writeTo(out);
+            }
+        });
+    }
+
+    /**
+     * Write the destination file from a sink working on the file channel.
+     * <p>The sink writes in a temporary file of the destination directory which is renamed at the end.
+     * The destination file is never partially written.</p>
+     *
+     * @param sink the sink.
+     * @throws Exception
+     */
+    public void transfer(final ChannelSink sink) throws Exception {
+        Preconditions.checkNotNull(sink);
         mkdirs();
-        ByteStreams.copy(inputStream, new FileOutputStream(file()));
+        transfer(file().toPath(), sink);
+    }
+
+    /**
+     * The gzip sibling of the destination file.
+     *
+     * @return the file named by the destination file and the <em>.gz</em> suffix.
+     */
+    public File gzipFile() {
+        return new File(file().getPath() + GZIP_SUFFIX);
+    }
+
+    /**
+     * Write the gzip sibling of the destination file.
+     * <p>The sibling is always compressed again and gets the modification time of the destination file.
+     * The modification times are too coarse for telling if it is up to date, the caller decides.</p>
+     *
+     * @param level the compression level, from 1 to 9.
+     * @return the sibling.
+     * @throws Exception
+     */
+    public File gzip(final int level) throws Exception {
+        Preconditions.checkArgument(level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION,
+                "Invalid gzip level %s", level);
+        final File source = file();
+        final File gz = gzipFile();
+        transfer(gz.toPath(), channel -> {
+            try (OutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            }) {
+                Files.copy(source, out);
+            }
+        });
+        if (!gz.setLastModified(source.lastModified())) {
+            throw new IOException("Unable to set the modification time of " + gz);
+        }
+        return gz;
+    }
+
+    private void transfer(final Path target, final ChannelSink sink) throws Exception {
+        final Path tmp = createSibling(target, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                sink.writeTo(channel);
+            }
+            move(tmp, target);
+        } finally {
+            java.nio.file.Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Create an empty file with an unique name in the directory of a file.
+     * <p>Unlike {@link java.nio.file.Files#createTempFile}, the file gets the default permissions of the
+     * process, so the file it is renamed to stays readable as any other generated file.</p>
+     *
+     * @param target the file.
+     * @param suffix the suffix of the name.
+     * @return the created file.
+     * @throws IOException
+     */
+    static Path createSibling(final Path target, final String suffix) throws IOException {
+        final String prefix = target.getFileName().toString() + '.';
+        while (true) {
+            try {
+                return java.nio.file.Files.createFile(target.resolveSibling(
+                        prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + suffix));
+            } catch (FileAlreadyExistsException e) {
+//              try another name.
+            }
+        }
+    }
+
+    /**
+     * Rename the temporary file to the destination file.
+     *
+     * @param tmp    the temporary file.
+     * @param target the destination file.
+     * @throws IOException
+     */
+    static void move(final Path tmp, final Path target) throws IOException {
+        try {
+            java.nio.file.Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            java.nio.file.Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     public WriterManager mkdirs() throws Exception {
@@ -57,4 +202,54 @@ public class WriterManager {
         return new File(tofile);
     }
 
+    /**
+     * Create an UTF-8 writer on a stream.
+     * <p>Closing the writer flushes it but keeps the stream opened for the next writes.</p>
+     *
+     * @param out the stream.
+     * @return the writer.
+     */
+    public static Writer utf8Writer(final OutputStream out) {
+        Preconditions.checkNotNull(out);
+        return new OutputStreamWriter(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, Charsets.UTF_8);
+    }
+
+    /**
+     * Producer of the content of a file.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Write the content.
+         *
+         * @param out the stream of the file. It is closed by the caller.
+         * @throws Exception
+         */
+        void writeTo(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Producer of the content of a file working on the file channel.
+     */
+    @FunctionalInterface
+    public interface ChannelSink {
+        /**
+         * Write the content.
+         *
+         * @param channel the channel of the file. It is closed by the caller.
+         * @throws Exception
+         */
+        void writeTo(FileChannel channel) throws Exception;
+    }
+
 }
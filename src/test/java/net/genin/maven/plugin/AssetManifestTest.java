@@ -0,0 +1,60 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for AssetManifest.
+ */
+public class AssetManifestTest {
+
+    private static final String HASH = "0123456789abcdef";
+
+    @Test
+    public void fingerprinted() {
+        assertEquals("min/essai.min.0123456789.js", AssetManifest.fingerprinted("min/essai.min.js", HASH));
+        assertEquals("min/essai.0123456789", AssetManifest.fingerprinted("min/essai", HASH));
+        assertEquals("min.d/essai.0123456789", AssetManifest.fingerprinted("min.d/essai", HASH));
+        assertEquals("min/.essai.0123456789", AssetManifest.fingerprinted("min/.essai", HASH));
+    }
+
+    @Test
+    public void resolveAndSave() throws Exception {
+        final File file = new File("target/AssetManifestTest/assets.json");
+        final AssetManifest assets = new AssetManifest(file);
+        assets.put("min/essai.min.js", "min/essai.min.0123456789.js");
+
+        assertEquals("min/essai.min.0123456789.js", assets.resolve("min/essai.min.js"));
+        assertEquals("min/other.js", assets.resolve("min/other.js"));
+
+        assets.save();
+        final Map<?, ?> json = new Gson().fromJson(Files.asCharSource(file, Charsets.UTF_8).read(), Map.class);
+        assertEquals(1, json.size());
+        assertEquals("min/essai.min.0123456789.js", json.get("min/essai.min.js"));
+    }
+
+    @Test
+    public void removeStale() throws Exception {
+        final File file = new File("target/AssetManifestTest/stale.json");
+        file.delete();
+        final AssetManifest first = new AssetManifest(file);
+        first.put("min/a.js", "min/a.0000000000.js");
+        first.put("min/b.js", "min/b.0000000000.js");
+        first.save();
+
+        final AssetManifest second = new AssetManifest(file);
+        second.put("min/a.js", "min/a.1111111111.js");
+        second.put("min/a.js", "min/a.2222222222.js");
+        assertEquals(Sets.newHashSet("min/a.0000000000.js", "min/a.1111111111.js", "min/b.0000000000.js"),
+                second.removeStale());
+        assertTrue(second.removeStale().isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BuildManifest.
+ */
+public class BuildManifestTest {
+
+    private final static File manifestFile = new File("target/BuildManifestTest/manifest.properties");
+
+    @Test
+    public void fingerprintDependsOnSourcesProcessorAndAction() throws Exception {
+        final String root = new File(Resources.getResource("minify").toURI()).getAbsolutePath();
+        final BuildManifest manifest = new BuildManifest(root, manifestFile);
+        final List<String> sources = Lists.newArrayList("a.js", "b.js");
+
+        final String fingerprint = manifest.fingerprint(sources, "UglifyJs", Template.Action.minify);
+        assertEquals(fingerprint, manifest.fingerprint(sources, "UglifyJs", Template.Action.minify));
+        assertNotEquals(fingerprint, manifest.fingerprint(Lists.newArrayList("b.js", "a.js"), "UglifyJs", Template.Action.minify));
+        assertNotEquals(fingerprint, manifest.fingerprint(sources, "GoogleClosure", Template.Action.minify));
+        assertNotEquals(fingerprint, manifest.fingerprint(sources, "UglifyJs", Template.Action.concat));
+    }
+
+    @Test
+    public void fieldsAreDelimited() throws Exception {
+        final String root = new File(Resources.getResource("minify").toURI()).getAbsolutePath();
+        final BuildManifest manifest = new BuildManifest(root, manifestFile);
+
+//      missing files.
+        assertNotEquals(manifest.fingerprint(Lists.newArrayList("ab"), "UglifyJs", Template.Action.minify),
+                manifest.fingerprint(Lists.newArrayList("a", "b"), "UglifyJs", Template.Action.minify));
+        assertNotEquals(manifest.fingerprint(Lists.newArrayList("a"), "UglifyJs", Template.Action.minify),
+                manifest.fingerprint(Lists.newArrayList(), "UglifyJsa", Template.Action.minify));
+        assertNotEquals(manifest.fingerprint(Lists.newArrayList("missing.js"), "UglifyJs", Template.Action.minify),
+                manifest.fingerprint(Lists.newArrayList("missing.js", "missing.js"), "UglifyJs", Template.Action.minify));
+    }
+
+    @Test
+    public void saveAndReload() throws Exception {
+        final String root = new File(Resources.getResource("minify").toURI()).getAbsolutePath();
+        final File output = new File(root, "a.js");
+        manifestFile.delete();
+        final BuildManifest manifest = new BuildManifest(root, manifestFile);
+        final String fingerprint = manifest.fingerprint(Lists.newArrayList("a.js"), "UglifyJs", Template.Action.minify);
+        assertFalse(manifest.isUpToDate("min/a.min.js", fingerprint, output));
+
+        manifest.update("min/a.min.js", fingerprint);
+        manifest.save();
+
+        final BuildManifest reloaded = new BuildManifest(root, manifestFile);
+        assertTrue(reloaded.isUpToDate("min/a.min.js", fingerprint, output));
+        assertFalse(reloaded.isUpToDate("min/a.min.js", fingerprint, new File(root, "missing.js")));
+    }
+}
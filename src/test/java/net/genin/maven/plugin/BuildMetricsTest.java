@@ -0,0 +1,49 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BuildMetrics.
+ */
+public class BuildMetricsTest {
+
+    @Test
+    public void save() throws Exception {
+        final File file = new File("target/BuildMetricsTest/metrics.json");
+        final BuildMetrics metrics = new BuildMetrics(file);
+        final Bundle fast = new Bundle("min/fast.js", Lists.newArrayList("js/a.js"), Template.Action.concat);
+        final Bundle slow = new Bundle("min/slow.js", Lists.newArrayList("js/b.js"), Template.Action.minify);
+        metrics.bundle(fast).generated(System.nanoTime(), true, 100, 100);
+        metrics.bundle(slow).generated(System.nanoTime() - 5_000_000_000L, false, 200, 50);
+        metrics.bundle(slow).gzipped(25);
+        metrics.add(BuildMetrics.Phase.parse, System.nanoTime() - 2_000_000_000L);
+        assertTrue(metrics.millis(BuildMetrics.Phase.parse) >= 2000);
+        metrics.save();
+
+        final Map<?, ?> json = new Gson().fromJson(Files.asCharSource(file, Charsets.UTF_8).read(), Map.class);
+        final Map<?, ?> phases = (Map<?, ?>) json.get("phases");
+        assertEquals(BuildMetrics.Phase.values().length, phases.size());
+        assertTrue(((Number) phases.get("parse")).longValue() >= 2000);
+        final List<?> bundles = (List<?>) json.get("bundles");
+        assertEquals(2, bundles.size());
+        final Map<?, ?> first = (Map<?, ?>) bundles.get(0);
+        assertEquals("min/slow.js", first.get("target"));
+        assertEquals("minify", first.get("action"));
+        assertEquals(0.25, ((Number) first.get("ratio")).doubleValue(), 0.001);
+        assertEquals(0.5, ((Number) first.get("gzipRatio")).doubleValue(), 0.001);
+        assertEquals(Boolean.TRUE, ((Map<?, ?>) bundles.get(1)).get("upToDate"));
+
+        metrics.reset();
+        assertEquals(0, metrics.millis(BuildMetrics.Phase.parse));
+    }
+}
@@ -0,0 +1,69 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BundleRegistry.
+ */
+public class BundleRegistryTest {
+
+    @Test
+    public void sameBundleIsRegisteredOnce() throws Exception {
+        final BundleRegistry registry = new BundleRegistry();
+        final Bundle vendor = new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js", "js/b.js"), Template.Action.minify);
+
+        assertTrue(registry.register(new URL("file:/a.html"), vendor));
+        assertFalse(registry.register(new URL("file:/b.html"),
+                new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js", "js/b.js"), Template.Action.minify)));
+        assertTrue(registry.register(new URL("file:/b.html"),
+                new Bundle("min/page.min.js", Lists.newArrayList("js/page.js"), Template.Action.concat)));
+
+        assertEquals(2, registry.size());
+        assertEquals("min/page.min.js", registry.bundles().get(0).target);
+        assertEquals(vendor, registry.bundles(Template.Action.minify).get(0));
+    }
+
+    @Test
+    public void differentSourcesFail() throws Exception {
+        final BundleRegistry registry = new BundleRegistry();
+        registry.register(new URL("file:/a.html"),
+                new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js", "js/b.js"), Template.Action.minify));
+        try {
+            registry.register(new URL("file:/b.html"),
+                    new Bundle("min/vendor.min.js", Lists.newArrayList("js/b.js", "js/a.js"), Template.Action.minify));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("min/vendor.min.js"));
+            assertTrue(e.getMessage().contains("file:/a.html"));
+            assertTrue(e.getMessage().contains("file:/b.html"));
+            assertTrue(e.getMessage().contains("sources [js/a.js, js/b.js] and [js/b.js, js/a.js]"));
+        }
+    }
+
+    @Test
+    public void differentProcessorOrKindFail() throws Exception {
+        final BundleRegistry registry = new BundleRegistry();
+        registry.register(new URL("file:/a.html"), new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js"),
+                Template.Action.minify, false, Minify.Processor.UglifyJs));
+        try {
+            registry.register(new URL("file:/b.html"), new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js"),
+                    Template.Action.minify, false, Minify.Processor.Fast));
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("The bundle min/vendor.min.js is declared differently in file:/a.html and file:/b.html :"
+                    + " processor UglifyJs and Fast", e.getMessage());
+        }
+        try {
+            registry.register(new URL("file:/b.html"), new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js"),
+                    Template.Action.minify, true, Minify.Processor.UglifyJs));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().endsWith(": kind script and style"));
+        }
+    }
+}
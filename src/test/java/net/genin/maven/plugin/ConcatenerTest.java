@@ -2,17 +2,23 @@ package net.genin.maven.plugin;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Bytes;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for Minify.
@@ -73,4 +79,45 @@ public class ConcatenerTest {
         assertEquals("alert('truc');|// dqsdqsdqsdsqdqs\r\n" +
                 "// dqsdqsdqsdqs", text);
     }
+
+    @Test
+    public void rawConcatenation() throws Exception {
+        final URL concatUrl = Resources.getResource("concat");
+        final String root = new File(concatUrl.toURI()).getAbsolutePath();
+
+        final Concatener concatener = new Concatener.Builder(root).raw().separator(";\n").build();
+
+        final InputStream stream = concatener.stream(Lists.newArrayList("file1.js", "file2.js"));
+        final byte[] expected = Bytes.concat(Files.toByteArray(new File(root, "file1.js")),
+                ";\n".getBytes(Charsets.UTF_8), Files.toByteArray(new File(root, "file2.js")));
+        assertArrayEquals(expected, ByteStreams.toByteArray(stream));
+    }
+
+    @Test
+    public void rawConcatenationToFileChannel() throws Exception {
+        final URL concatUrl = Resources.getResource("concat");
+        final String root = new File(concatUrl.toURI()).getAbsolutePath();
+        final WriterManager writer = new WriterManager(root, new File(root, "all.js").toURI().toURL(), "target/ConcatenerTest").run();
+
+        final Concatener concatener = new Concatener.Builder(root).raw().build();
+        writer.transfer(channel -> concatener.transferTo(Lists.newArrayList("file1.js", "file2.js"), channel));
+
+        final byte[] expected = Bytes.concat(Files.toByteArray(new File(root, "file1.js")),
+                "\n".getBytes(Charsets.UTF_8), Files.toByteArray(new File(root, "file2.js")));
+        assertArrayEquals(expected, Files.toByteArray(writer.file()));
+    }
+
+    @Test
+    public void rebaseStylesheets() throws Exception {
+        final URL styleUrl = Resources.getResource("styleurls");
+        final String root = new File(styleUrl.toURI()).getAbsolutePath();
+
+        final Concatener concatener = new Concatener.Builder(root).raw().build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        concatener.writeTo(Lists.newArrayList("css/theme/inline.css", "css/theme/main.css"), "min/all.css", out);
+
+        final String css = new String(out.toByteArray(), Charsets.UTF_8);
+        assertTrue(css, css.contains("url(../img/x.png)"));
+        assertTrue(css, css.contains("url('../css/theme/logo.svg#icon')"));
+    }
 }
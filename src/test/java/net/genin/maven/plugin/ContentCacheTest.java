@@ -0,0 +1,80 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Strings;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for ContentCache.
+ */
+public class ContentCacheTest {
+
+    @Test
+    public void get() throws Exception {
+        final File dir = new File("target/ContentCacheTest");
+        if (dir.exists()) {
+            MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+        final ContentCache cache = new ContentCache(dir);
+        final String key = ContentCache.key("UglifyJs", "var a = 1;");
+        assertNotEquals(key, ContentCache.key("UglifyJ", "svar a = 1;"));
+
+        assertEquals("var a=1", cache.get(key, () -> "var a=1"));
+        assertEquals("var a=1", cache.get(key, () -> "other"));
+        assertEquals(1, cache.misses());
+        assertTrue(cache.file(key).isFile());
+        assertTrue(cache.file(key).getPath().endsWith(key.substring(0, 2) + File.separator + key));
+
+//      The cache is shared with the next builds.
+        assertEquals("var a=1", new ContentCache(dir).get(key, () -> "other"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        final File dir = new File("target/ContentCacheTest/lru");
+        if (dir.exists()) {
+            MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+        final ContentCache cache = new ContentCache(dir, 100);
+        final String text = Strings.repeat("a", 40);
+        cache.get("k1", () -> text);
+        cache.get("k2", () -> text);
+        assertTrue(cache.file("k1").setLastModified(1000000L));
+        assertTrue(cache.file("k2").setLastModified(2000000L));
+
+//      k1 is used again, k2 becomes the least recently used.
+        assertEquals(text, cache.get("k1", () -> "other"));
+        cache.get("k3", () -> text);
+
+        assertTrue(cache.file("k1").isFile());
+        assertFalse(cache.file("k2").isFile());
+        assertTrue(cache.file("k3").isFile());
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    public void defaultPermissions() throws Exception {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final File dir = new File("target/ContentCacheTest/permissions");
+        if (dir.exists()) {
+            MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+        final ContentCache cache = new ContentCache(dir);
+        cache.get("k1", () -> "a");
+        final File reference = new File(dir, "reference");
+        com.google.common.io.Files.touch(reference);
+
+//      a shared cache is readable by the other users of the machine.
+        assertEquals(Files.getPosixFilePermissions(reference.toPath()),
+                Files.getPosixFilePermissions(cache.file("k1").toPath()));
+    }
+}
@@ -0,0 +1,38 @@
+package net.genin.maven.plugin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for CssUrls.
+ */
+public class CssUrlsTest {
+
+    @Test
+    public void rebase() throws Exception {
+        assertEquals("a{background:url(../img/x.png)}",
+                CssUrls.rebase("a{background:url(../img/x.png)}", "css/a.css", "min/all.css"));
+        assertEquals("a{background:url(../../img/x.png)}",
+                CssUrls.rebase("a{background:url(../img/x.png)}", "css/a.css", "min/css/all.css"));
+        assertEquals("a{background:url(img/x.png)}",
+                CssUrls.rebase("a{background:url(../img/x.png)}", "css/a.css", "index.html"));
+        assertEquals("a{background:url('../css/fonts/f.woff?#iefix')}",
+                CssUrls.rebase("a{background:url('fonts/f.woff?#iefix')}", "css/a.css", "min/all.css"));
+        assertEquals("@import \"../css/b.css\";a{background:url(\"../css/x.png\")}",
+                CssUrls.rebase("@import \"b.css\";a{background:url( \"./x.png\" )}", "css/a.css", "min/all.css"));
+    }
+
+    @Test
+    public void keepAbsoluteUrls() throws Exception {
+        final String css = "a{background:url(/img/x.png)}b{background:url(http://a.com/x.png)}"
+                + "c{background:url(data:image/png;base64,AAAA)}d{behavior:url(#default)}";
+        assertEquals(css, CssUrls.rebase(css, "css/a.css", "min/all.css"));
+    }
+
+    @Test
+    public void sameDirectory() throws Exception {
+        final String css = "a{background:url(x.png)}";
+        assertEquals(css, CssUrls.rebase(css, "css/a.css", "css/all.css"));
+    }
+}
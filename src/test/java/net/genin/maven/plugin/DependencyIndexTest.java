@@ -0,0 +1,94 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for DependencyIndex.
+ */
+public class DependencyIndexTest {
+
+    private final static File indexFile = new File("target/DependencyIndexTest/dependencies.json");
+
+    private final static File root = new File("target/DependencyIndexTest/root");
+
+    @Test
+    public void impactedBundlesAndTemplates() throws Exception {
+        indexFile.delete();
+        final DependencyIndex index = new DependencyIndex(root.getPath(), indexFile);
+        final Bundle vendor = new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js", "js/b.js"), Template.Action.minify);
+        final Bundle page = new Bundle("min/page.min.js", Lists.newArrayList("/js/page.js"), Template.Action.concat);
+        index.record(new File(root, "a.html").toURI().toURL(), Lists.newArrayList(vendor));
+        index.record(new File(root, "b.html").toURI().toURL(), Lists.newArrayList(vendor, page));
+
+        assertEquals(Lists.newArrayList(vendor), index.bundles(paths("js/b.js", "css/c.css")));
+        assertEquals(Lists.newArrayList(page), index.bundles(paths("js/page.js")));
+        assertTrue(index.bundles(paths("js/other.js")).isEmpty());
+        assertEquals(Lists.newArrayList("a.html", "b.html"), Lists.newArrayList(index.templates(Lists.newArrayList(vendor))));
+        assertEquals(Lists.newArrayList("b.html"), Lists.newArrayList(index.templates(Lists.newArrayList(page))));
+
+//      b.html does not declare page anymore.
+        index.record(new File(root, "b.html").toURI().toURL(), Collections.emptyList());
+        assertTrue(index.bundles(paths("js/page.js")).isEmpty());
+        assertEquals(Lists.newArrayList("a.html"), Lists.newArrayList(index.templates(Lists.newArrayList(vendor))));
+
+//      the bundles declared by no template are not saved.
+        index.save();
+        final String json = Files.asCharSource(indexFile, Charsets.UTF_8).read();
+        assertTrue(json, json.contains("min/vendor.min.js"));
+        assertFalse(json, json.contains("min/page.min.js"));
+    }
+
+    @Test
+    public void saveAndReload() throws Exception {
+        indexFile.delete();
+        final DependencyIndex index = new DependencyIndex(root.getPath(), indexFile);
+        final Bundle vendor = new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js", "js/b.js"), Template.Action.minify);
+        final Bundle critical = new Bundle("min/critical.min.js", Lists.newArrayList("js/c.js"), Template.Action.minify,
+                false, Minify.Processor.GoogleClosure);
+        final Bundle odd = new Bundle("min/a|b:c.css", Lists.newArrayList("css/x|y.css", "css/a:b.css"),
+                Template.Action.concat, true, null);
+        index.record(new File(root, "sub/a.html").toURI().toURL(), Lists.newArrayList(vendor, critical));
+        index.record(new File(root, "sub/o|d:d.html").toURI().toURL(), Lists.newArrayList(odd));
+        index.save();
+
+        final DependencyIndex reloaded = new DependencyIndex(root.getPath(), indexFile);
+        assertEquals(Lists.newArrayList(odd, critical, vendor), reloaded.bundles());
+        assertEquals(Lists.newArrayList(odd), reloaded.bundles(paths("css/a:b.css")));
+        assertEquals(Lists.newArrayList("sub/o|d:d.html"), Lists.newArrayList(reloaded.templates(Lists.newArrayList(odd))));
+        assertEquals(Lists.newArrayList(vendor), reloaded.bundles(paths("js/a.js")));
+        assertEquals(Lists.newArrayList("sub/a.html"), Lists.newArrayList(reloaded.templates(Lists.newArrayList(vendor))));
+    }
+
+    @Test
+    public void clear() throws Exception {
+        indexFile.delete();
+        final DependencyIndex index = new DependencyIndex(root.getPath(), indexFile);
+        final Bundle vendor = new Bundle("min/vendor.min.js", Lists.newArrayList("js/a.js"), Template.Action.minify);
+        index.record(new File(root, "deleted.html").toURI().toURL(), Lists.newArrayList(vendor));
+        index.save();
+
+//      the next full build does not find deleted.html.
+        final DependencyIndex reloaded = new DependencyIndex(root.getPath(), indexFile);
+        reloaded.clear();
+        assertTrue(reloaded.bundles().isEmpty());
+        assertTrue(reloaded.templates(Lists.newArrayList(vendor)).isEmpty());
+    }
+
+    private static List<Path> paths(String... files) {
+        final List<Path> paths = Lists.newArrayList();
+        for (String f : files) {
+            paths.add(new File(root, f).toPath());
+        }
+        return paths;
+    }
+}
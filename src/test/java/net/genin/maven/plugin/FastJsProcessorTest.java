@@ -0,0 +1,73 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for FastJsProcessor.
+ */
+public class FastJsProcessorTest {
+
+    @Test
+    public void commentsAndWhitespaces() throws Exception {
+        assertEquals("var a=1;function f(b,c){return b+c;}",
+                minify("/* header */\nvar a = 1; // one\nfunction f( b, c ) {\n    return b + c;\n}\n"));
+        assertEquals("/*! license */\nvar a=1;", minify("/*! license */\nvar a = 1;"));
+        assertEquals("a=1\n/*! license */\nb=2", minify("a = 1\n\n/*! license */\nb = 2"));
+        assertEquals("a+ +b;a- -b;a++ +b;typeof a", minify("a + +b; a - -b; a++ + b; typeof  a"));
+        assertEquals("1 .toString();1.5.toFixed();x=1e-5+.5", minify("1 .toString(); 1.5.toFixed(); x = 1e-5 + .5"));
+    }
+
+    @Test
+    public void automaticSemicolonInsertion() throws Exception {
+        assertEquals("var a=b\n(c)", minify("var a = b\n(c)"));
+        assertEquals("return\na", minify("return\na"));
+        assertEquals("a\n++b", minify("a\n++b"));
+        assertEquals("a=[1,2]", minify("a = [1,\n2]"));
+        assertEquals("if(a){b()}\nc()", minify("if (a) {\n    b()\n}\nc()"));
+    }
+
+    @Test
+    public void literals() throws Exception {
+        assertEquals("var s=\"a  // b\"+'c /* d */'", minify("var s = \"a  // b\" + 'c /* d */'"));
+        assertEquals("var s=\"a\\\" b\"", minify("var s = \"a\\\" b\""));
+        assertEquals("var r=/[/]  \\/ x/g;r.test(a/b/c)", minify("var r = /[/]  \\/ x/g; r.test(a / b / c)"));
+        assertEquals("return/a b/i in c", minify("return/a b/i in c"));
+        assertEquals("n=i++/2;m=j--/2/1;p=+ +/a/.source", minify("n = i++ / 2; m = j-- / 2 / 1; p = + +/a/.source"));
+        assertEquals("var t=`a  ${b}  ${`c  ${d}`} /* e */`;f()",
+                minify("var t = `a  ${ b }  ${ `c  ${ d }` } /* e */`; f()"));
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedString() throws Exception {
+        minify("var s = 'a;\n");
+    }
+
+    @Test
+    public void compilable() throws Exception {
+        final String jquery = Resources.asCharSource(Resources.getResource("minify/lib/jquery-1.9.1.min.js"), Charsets.UTF_8).read();
+        final String component = Resources.asCharSource(Resources.getResource("minify/components/component.js"), Charsets.UTF_8).read();
+        final Context context = Context.enter();
+        try {
+            context.setOptimizationLevel(-1);
+            context.compileString(minify(jquery), "jquery", 1, null);
+            context.compileString(minify(component), "component", 1, null);
+        } finally {
+            Context.exit();
+        }
+    }
+
+    private static String minify(final String source) throws IOException {
+        final StringWriter writer = new StringWriter();
+        new FastJsProcessor().process(new StringReader(source), writer);
+        return writer.toString();
+    }
+}
@@ -7,8 +7,6 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FilenameFilter;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 
 import static org.junit.Assert.*;
@@ -25,8 +23,7 @@ public class JsxMojoTest {
         mojo.setRoot(new File("target/test-classes/jsxmojo").getAbsolutePath());
         mojo.setDestDir("target/jsxmojoTest");
         mojo.setProcessor("UglifyJs");
-        Path currentRelativePath = Paths.get("");
-        mojo.setJsxBaseDirectory(currentRelativePath.toFile());
+        mojo.setIncremental(false);
         mojo.execute();
         assertEssaiHtml();
         verifyMinifyJs();
@@ -0,0 +1,46 @@
+package net.genin.maven.plugin;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for JsxTransformer.
+ */
+public class JsxTransformerTest {
+
+    @Test
+    public void transform() throws Exception {
+        final JsxTransformer transformer = new JsxTransformer();
+        assertEquals("var a = React.createElement(\"div\", {className: \"a\"}, \"Hello\");",
+                transformer.transform("var a = <div className=\"a\">Hello</div>;").trim());
+//      The loaded engine is reused.
+        assertEquals("var b = React.createElement(\"span\", null);", transformer.transform("var b = <span />;").trim());
+    }
+
+    @Test
+    public void cache() throws Exception {
+        final File cache = new File("target/JsxTransformerTest/cache");
+        if (cache.exists()) {
+            MoreFiles.deleteRecursively(cache.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+        final URL script = Resources.getResource(JsxTransformer.class, JsxTransformer.DEFAULT_SCRIPT);
+        final JsxTransformer transformer = new JsxTransformer(script, cache);
+        final String js = transformer.transform("var a = <div />;");
+        assertEquals(js, transformer.transform("var a = <div />;"));
+        assertEquals(1, transformer.transformations());
+
+//      The cache is shared with the next builds.
+        final JsxTransformer next = new JsxTransformer(script, cache);
+        assertEquals(js, next.transform("var a = <div />;"));
+        assertEquals(0, next.transformations());
+        next.transform("var b = <div />;");
+        assertEquals(1, next.transformations());
+    }
+}
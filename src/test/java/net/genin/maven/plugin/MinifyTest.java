@@ -2,9 +2,13 @@ package net.genin.maven.plugin;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.CharSource;
 import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 import com.google.common.io.Resources;
 
 import static org.junit.Assert.*;
@@ -12,6 +16,7 @@ import static org.junit.Assert.*;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -94,5 +99,66 @@ public class MinifyTest {
                 "});", uglify);
     }
 
+    @Test
+    public void testFast() throws Exception {
+        final URL minifyUrl = Resources.getResource("minify");
+        final String root = new File(minifyUrl.toURI()).getAbsolutePath();
+
+        final Minify minify = new Minify.Builder(root).toFast().build();
+
+        final InputStream stream = minify.stream(Lists.newArrayList("a.js", "b.js"));
+        assertNotNull(stream);
+
+        final String fast = CharStreams.toString(new InputStreamReader(stream, Charsets.UTF_8));
+
+        assertEquals("function test(value){alert(value);}\n$(document).ready(function(){var valeur=$('essai').val();test(valeur);});", fast);
+    }
+
+    @Test
+    public void testFastKeywordAfterRegex() throws Exception {
+        final Minify minify = new Minify.Builder(new File(Resources.getResource("minify").toURI()).getAbsolutePath())
+                .toFast().build();
+        for (String[] c : new String[][]{
+                {"a = /a/ instanceof RegExp;", "a=/a/ instanceof RegExp;"},
+                {"b = /a/ in x;", "b=/a/ in x;"},
+                {"c = /a/g instanceof RegExp;", "c=/a/g instanceof RegExp;"}}) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            minify.writeTo(CharSource.wrap(c[0]), out);
+            assertEquals(c[1], new String(out.toByteArray(), Charsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void processorVersion() throws Exception {
+        final String version = Minify.Processor.Fast.version();
+        assertEquals(version, Minify.Processor.Fast.version());
+        assertTrue(version.startsWith("dev:"));
+//      the nested classes of the processor are part of the version.
+        final String outer = Resources.asByteSource(FastJsProcessor.class.getResource("FastJsProcessor.class"))
+                .hash(Hashing.sha256()).toString();
+        assertNotEquals("dev:" + outer, version);
+        assertNotEquals(version, Minify.Processor.CssCompressor.version());
+    }
+
+    @Test
+    public void testPerFile() throws Exception {
+        final URL minifyUrl = Resources.getResource("minify");
+        final String root = new File(minifyUrl.toURI()).getAbsolutePath();
+        final File dir = new File("target/MinifyTest/files");
+        if (dir.exists()) {
+            MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+        final ContentCache cache = new ContentCache(dir);
+
+        final Minify minify = new Minify.Builder(root).toUglifyJs().perFile(cache).build();
 
+        final String uglify = CharStreams.toString(new InputStreamReader(minify.stream(Lists.newArrayList("a.js", "b.js")), Charsets.UTF_8));
+
+        assertEquals("function test(e){alert(e)};\n$(document).ready(function(){var e=$(\"essai\").val();test(e)})", uglify);
+        assertEquals(2, cache.misses());
+
+//      the unchanged files are not minified again.
+        CharStreams.toString(new InputStreamReader(minify.stream(Lists.newArrayList("b.js", "a.js")), Charsets.UTF_8));
+        assertEquals(2, cache.misses());
+    }
 }
@@ -0,0 +1,33 @@
+package net.genin.maven.plugin;
+
+import org.junit.Test;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for ProcessorPool.
+ */
+public class ProcessorPoolTest {
+
+    @Test
+    public void reuseReleasedInstance() throws Exception {
+        final ProcessorPool pool = new ProcessorPool();
+        final ResourcePostProcessor instance = pool.borrow(Minify.Processor.UglifyJs);
+        assertNotNull(instance);
+        assertNotSame(instance, pool.borrow(Minify.Processor.UglifyJs));
+
+        pool.release(Minify.Processor.UglifyJs, instance);
+        assertEquals(1, pool.idles(Minify.Processor.UglifyJs));
+        assertEquals(0, pool.idles(Minify.Processor.BeautifyJs));
+        assertSame(instance, pool.borrow(Minify.Processor.UglifyJs));
+        assertEquals(0, pool.idles(Minify.Processor.UglifyJs));
+    }
+
+    @Test
+    public void warmUp() throws Exception {
+        final ProcessorPool pool = new ProcessorPool();
+        pool.warmUp(Minify.Processor.UglifyJs, 2);
+        assertEquals(2, pool.idles(Minify.Processor.UglifyJs));
+    }
+}
@@ -2,19 +2,25 @@ package net.genin.maven.plugin;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import com.google.gson.Gson;
 import org.junit.Test;
 
 import javax.activation.FileDataSource;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
 
@@ -30,13 +36,307 @@ public class ScriptMojoTest {
         mojo.setRoot(new File("target/test-classes/mojo").getAbsolutePath());
         mojo.setDestDir("target/mojoTest");
         mojo.setProcessor("UglifyJs");
-        Path currentRelativePath = Paths.get("");
-        mojo.setJsxBaseDirectory(currentRelativePath.toFile());
+        mojo.setIncremental(false);
         mojo.execute();
         assertEssaiHtml();
         verifyMinifyJs();
     }
 
+    @Test
+    public void parallel() throws Exception {
+        final String root = new File("target/test-classes/mojo").getAbsolutePath();
+        final ScriptMojo sequential = new ScriptMojo();
+        sequential.setRoot(root);
+        sequential.setDestDir("target/mojoSequentialTest");
+        sequential.setProcessor("UglifyJs");
+        sequential.setIncremental(false);
+        sequential.execute();
+
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(root);
+        mojo.setDestDir("target/mojoParallelTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setThreads(4);
+        mojo.execute();
+
+        assertTrue(Files.equal(new File("target/mojoSequentialTest/min/essai.min.js"),
+                new File("target/mojoParallelTest/min/essai.min.js")));
+        assertTrue(Files.equal(new File("target/mojoSequentialTest/essai.html"),
+                new File("target/mojoParallelTest/essai.html")));
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/watch").getAbsolutePath());
+        mojo.setDestDir("target/mojoGzipTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setGzip(true);
+        mojo.setGzipLevel(1);
+        mojo.execute();
+
+        for (String f : new String[]{"min/all.js", "index.html"}) {
+            final File gz = new File("target/mojoGzipTest/" + f + ".gz");
+            try (InputStream in = new GZIPInputStream(new FileInputStream(gz))) {
+                assertArrayEquals(Files.toByteArray(new File("target/mojoGzipTest/" + f)), ByteStreams.toByteArray(in));
+            }
+        }
+    }
+
+    @Test
+    public void gzipRewrittenBundle() throws Exception {
+        final File root = new File("target/mojoGzipRewrittenTest/src");
+        final File dest = new File("target/mojoGzipRewrittenTest/dest");
+        for (String f : new String[]{"index.html", "js/a.js", "js/b.js"}) {
+            Files.createParentDirs(new File(root, f));
+            Files.copy(new File("target/test-classes/watch/" + f), new File(root, f));
+        }
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(root.getAbsolutePath());
+        mojo.setDestDir(dest.getPath());
+        mojo.setWorkDirectory("target/mojoGzipRewrittenTest/work");
+        mojo.setProcessor("UglifyJs");
+        mojo.setGzip(true);
+        mojo.execute();
+        final File gz = new File(dest, "min/all.js.gz");
+
+//      an up to date bundle keeps its sibling.
+        assertTrue(gz.setLastModified(1000000L));
+        mojo.execute();
+        assertEquals(1000000L, gz.lastModified());
+
+        Files.asCharSink(new File(root, "js/a.js"), Charsets.UTF_8).write("var changed = 1;");
+        mojo.execute();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gz))) {
+            assertTrue(new String(ByteStreams.toByteArray(in), Charsets.UTF_8).contains("changed"));
+        }
+    }
+
+    @Test
+    public void fingerprint() throws Exception {
+        final File assets = new File("target/mojoFingerprintTest.json");
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/watch").getAbsolutePath());
+        mojo.setDestDir("target/mojoFingerprintTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setFingerprint(true);
+        mojo.setAssetManifest(assets);
+        mojo.execute();
+
+        final File all = new File("target/mojoFingerprintTest/min/all.js");
+        final String name = AssetManifest.fingerprinted("min/all.js", Files.asByteSource(all).hash(Hashing.sha256()).toString());
+        assertTrue(Files.equal(all, new File("target/mojoFingerprintTest/" + name)));
+        final String html = Files.asCharSource(new File("target/mojoFingerprintTest/index.html"), Charsets.UTF_8).read();
+        assertTrue(html.contains("src=\"" + name + "\""));
+        assertTrue(Files.asCharSource(assets, Charsets.UTF_8).read().contains("\"min/all.js\": \"" + name + "\""));
+    }
+
+    @Test
+    public void fingerprintDeletesStaleFiles() throws Exception {
+        final File root = new File("target/mojoFingerprintStaleTest/src");
+        final File dest = new File("target/mojoFingerprintStaleTest/dest");
+        for (String f : new String[]{"index.html", "js/a.js", "js/b.js"}) {
+            Files.createParentDirs(new File(root, f));
+            Files.copy(new File("target/test-classes/watch/" + f), new File(root, f));
+        }
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(root.getAbsolutePath());
+        mojo.setDestDir(dest.getPath());
+        mojo.setWorkDirectory("target/mojoFingerprintStaleTest/work");
+        mojo.setProcessor("UglifyJs");
+        mojo.setFingerprint(true);
+        mojo.setGzip(true);
+        mojo.execute();
+        final File all = new File(dest, "min/all.js");
+        final File first = new File(dest, AssetManifest.fingerprinted("min/all.js",
+                Files.asByteSource(all).hash(Hashing.sha256()).toString()));
+        assertTrue(first.isFile());
+
+        Files.asCharSink(new File(root, "js/a.js"), Charsets.UTF_8).write("var changed = 1;");
+        mojo.execute();
+        final File second = new File(dest, AssetManifest.fingerprinted("min/all.js",
+                Files.asByteSource(all).hash(Hashing.sha256()).toString()));
+        assertTrue(second.isFile());
+        assertFalse(first.exists());
+        assertFalse(new File(first.getPath() + ".gz").exists());
+        final String html = Files.asCharSource(new File(dest, "index.html"), Charsets.UTF_8).read();
+        assertTrue(html.contains("src=\"" + dest.toPath().relativize(second.toPath()).toString().replace('\\', '/') + "\""));
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        final File report = new File("target/mojoMetricsTest.json");
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/watch").getAbsolutePath());
+        mojo.setDestDir("target/mojoMetricsTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setGzip(true);
+        mojo.setMetricsReport(report);
+        mojo.execute();
+
+        final Map<?, ?> json = new Gson().fromJson(Files.asCharSource(report, Charsets.UTF_8).read(), Map.class);
+        assertTrue(((Map<?, ?>) json.get("phases")).containsKey("traversal"));
+        final Map<?, ?> all = (Map<?, ?>) ((List<?>) json.get("bundles")).get(0);
+        assertEquals("min/all.js", all.get("target"));
+        assertEquals(new File("target/mojoMetricsTest/min/all.js").length(), ((Number) all.get("bytesOut")).longValue());
+        assertEquals(new File("target/mojoMetricsTest/min/all.js.gz").length(), ((Number) all.get("gzipBytes")).longValue());
+    }
+
+    @Test
+    public void processors() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/processor").getAbsolutePath());
+        mojo.setDestDir("target/mojoProcessorTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.execute();
+
+        final String uglified = Files.asCharSource(new File("target/mojoProcessorTest/min/default.js"), Charsets.UTF_8).read();
+        final String beautified = Files.asCharSource(new File("target/mojoProcessorTest/min/beautify.js"), Charsets.UTF_8).read();
+        assertEquals("function add(e,t){return e+t}", uglified);
+        assertTrue(beautified.contains("    return e + t;\n"));
+    }
+
+    @Test
+    public void sharedCache() throws Exception {
+        final File cache = new File("target/mojoSharedCacheTest/cache");
+        for (String dest : new String[]{"target/mojoSharedCacheTest/a", "target/mojoSharedCacheTest/b"}) {
+            final ScriptMojo mojo = new ScriptMojo();
+            mojo.setRoot(new File("target/test-classes/mojo").getAbsolutePath());
+            mojo.setDestDir(dest);
+            mojo.setProcessor("UglifyJs");
+            mojo.setIncremental(false);
+            mojo.setSharedCache(true);
+            mojo.setSharedCacheDirectory(cache);
+            mojo.execute();
+        }
+
+        assertTrue(cache.list().length > 0);
+        assertTrue(Files.equal(new File("target/mojoSharedCacheTest/a/min/essai.min.js"),
+                new File("target/mojoSharedCacheTest/b/min/essai.min.js")));
+    }
+
+    @Test
+    public void perFileCacheBounded() throws Exception {
+        final File work = new File("target/mojoPerFileCacheTest/work");
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/mojo").getAbsolutePath());
+        mojo.setDestDir("target/mojoPerFileCacheTest/dest");
+        mojo.setWorkDirectory(work.getPath());
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setPerFile(true);
+        mojo.setSharedCacheMaxSize(1);
+        mojo.execute();
+
+        assertTrue(new File("target/mojoPerFileCacheTest/dest/min/essai.min.js").isFile());
+//      the per-file cache of the work directory is evicted as the shared cache.
+        long size = 0;
+        for (File f : Files.fileTraverser().depthFirstPreOrder(new File(work, ScriptMojo.FILES_CACHE_DIR))) {
+            if (f.isFile() && !f.getName().equals(ContentCache.LOCK_FILE)) {
+                size += f.length();
+            }
+        }
+        assertTrue("size " + size, size <= 1);
+    }
+
+    @Test
+    public void excludes() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/filter").getAbsolutePath());
+        mojo.setDestDir("target/mojoFilterTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setExcludes(new String[]{"**/node_modules/**", "test/data", "**/*.txt"});
+        mojo.execute();
+
+        assertTrue(new File("target/mojoFilterTest/index.html").isFile());
+        assertTrue(new File("target/mojoFilterTest/js/a.js").isFile());
+        assertTrue(new File("target/mojoFilterTest/min/a.js").isFile());
+        assertFalse(new File("target/mojoFilterTest/node_modules").exists());
+        assertFalse(new File("target/mojoFilterTest/test").exists());
+        assertFalse(new File("target/mojoFilterTest/js/notes.txt").exists());
+    }
+
+    @Test
+    public void styles() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/style").getAbsolutePath());
+        mojo.setDestDir("target/mojoStyleTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.execute();
+
+        final String css = Files.asCharSource(new File("target/mojoStyleTest/min/all.css"), Charsets.UTF_8).read();
+        assertTrue(css.contains("body{margin:0;padding:0}"));
+        assertTrue(css.contains("#content{"));
+        assertFalse(css.contains("\n"));
+        final String html = Files.asCharSource(new File("target/mojoStyleTest/style.html"), Charsets.UTF_8).read();
+        assertTrue(html.contains("href=\"min/all.css\" /></head>"));
+        assertFalse(html.contains("data-style-min"));
+    }
+
+    @Test
+    public void styleUrls() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/styleurls").getAbsolutePath());
+        mojo.setDestDir("target/mojoStyleUrlsTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.execute();
+
+        final String css = Files.asCharSource(new File("target/mojoStyleUrlsTest/min/all.css"), Charsets.UTF_8).read();
+        assertTrue(css, css.contains("url(../img/x.png)"));
+        assertTrue(new File("target/mojoStyleUrlsTest/min/../img/x.png").isFile());
+        assertTrue(css, css.contains("url('../css/theme/logo.svg#icon')"));
+        assertTrue(css, css.contains("url(\"http://example.com/a.png\")"));
+        assertTrue(css, css.contains("@import \"../css/theme/fonts.css\""));
+
+//      a concatenated stylesheet is rebased as well.
+        final String concat = Files.asCharSource(new File("target/mojoStyleUrlsTest/min/concat/all.css"), Charsets.UTF_8).read();
+        assertTrue(concat, concat.contains("url(../../img/x.png)"));
+        assertTrue(concat, concat.contains("url('../../css/theme/logo.svg#icon')"));
+        assertTrue(concat, concat.contains("@import \"../../css/theme/fonts.css\""));
+
+//      an inlined stylesheet refers to the images from the template.
+        final String html = Files.asCharSource(new File("target/mojoStyleUrlsTest/index.html"), Charsets.UTF_8).read();
+        assertTrue(html, html.contains("url(img/x.png)"));
+    }
+
+    @Test
+    public void inline() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/inline").getAbsolutePath());
+        mojo.setDestDir("target/mojoInlineTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.execute();
+
+        final String html = Files.asCharSource(new File("target/mojoInlineTest/inline.html"), Charsets.UTF_8).read();
+        assertTrue(html.contains("<style type=\"text/css\">body{margin:0}</style></head>"));
+        assertTrue(html.contains("<script type=\"application/javascript\">var a=1</script></body>"));
+        assertFalse(new File("target/mojoInlineTest/min").exists());
+    }
+
+    @Test
+    public void inlineThreshold() throws Exception {
+        final ScriptMojo mojo = new ScriptMojo();
+        mojo.setRoot(new File("target/test-classes/watch").getAbsolutePath());
+        mojo.setDestDir("target/mojoInlineThresholdTest");
+        mojo.setProcessor("UglifyJs");
+        mojo.setIncremental(false);
+        mojo.setInlineThreshold(1024);
+        mojo.execute();
+
+        final String html = Files.asCharSource(new File("target/mojoInlineThresholdTest/index.html"), Charsets.UTF_8).read();
+        assertTrue(html.contains("var a = 1;"));
+        assertFalse(html.contains("src=\"min/all.js\""));
+    }
+
     private void verifyMinifyJs() {
         final ArrayList<String> fs = Lists.newArrayList(new File("target/mojoTest/min").list(new FilenameFilter() {
             @Override
@@ -0,0 +1,80 @@
+package net.genin.maven.plugin;
+
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.net.URL;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SessionComponents.
+ */
+public class SessionComponentsTest {
+
+    @Test
+    public void sharedBySession() throws Exception {
+        final Object session = new Object();
+        final SessionComponents components = SessionComponents.of(session);
+        assertSame(components, SessionComponents.of(session));
+        assertNotSame(components, SessionComponents.of(new Object()));
+        assertNotSame(SessionComponents.of(null), SessionComponents.of(null));
+
+        assertTrue(components.warmUp(Minify.Processor.UglifyJs));
+        assertFalse(SessionComponents.of(session).warmUp(Minify.Processor.UglifyJs));
+    }
+
+    @Test
+    public void sharedByClonedSessions() throws Exception {
+        final Session session = new Session(new Object());
+        final Session module1 = session.clone();
+        final Session module2 = session.clone();
+        final SessionComponents components = SessionComponents.of(module1);
+
+        assertSame(session.request, SessionComponents.key(module1));
+        assertSame(components, SessionComponents.of(module2));
+        assertSame(components, SessionComponents.of(session));
+        assertNotSame(components, SessionComponents.of(new Session(new Object())));
+
+//      without request, the session itself is the key.
+        final Session noRequest = new Session(null);
+        assertSame(noRequest, SessionComponents.key(noRequest));
+    }
+
+    @Test
+    public void sharedEngines() throws Exception {
+        final URL script = Resources.getResource(JsxTransformer.class, JsxTransformer.DEFAULT_SCRIPT);
+        final SessionComponents components = SessionComponents.of(new Object());
+        final String js = components.transformer(script, null).transform("var a = <div/>;");
+
+        assertEquals(1, components.idleEngines(script));
+
+//      the second transformer reuses the loaded engine.
+        assertEquals(js, components.transformer(script, null).transform("var a = <div/>;"));
+        assertEquals(1, components.idleEngines(script));
+    }
+
+    /**
+     * A session cloned by project as the maven session, sharing its request.
+     */
+    public static class Session implements Cloneable {
+        private final Object request;
+
+        Session(final Object request) {
+            this.request = request;
+        }
+
+        public Object getRequest() {
+            return request;
+        }
+
+        @Override
+        public Session clone() {
+            try {
+                return (Session) super.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
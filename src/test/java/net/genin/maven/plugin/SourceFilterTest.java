@@ -0,0 +1,49 @@
+package net.genin.maven.plugin;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SourceFilter.
+ */
+public class SourceFilterTest {
+
+    private final static Path root = Paths.get("target/SourceFilterTest").toAbsolutePath();
+
+    @Test
+    public void excludes() {
+        final SourceFilter filter = new SourceFilter(root, Collections.emptyList(),
+                Lists.newArrayList("**/node_modules/**", "test/data", "**/*.txt"));
+
+        assertTrue(filter.traverse(root));
+        assertFalse(filter.traverse(root.resolve("node_modules")));
+        assertFalse(filter.traverse(root.resolve("app/node_modules")));
+        assertFalse(filter.traverse(root.resolve("test/data")));
+        assertTrue(filter.traverse(root.resolve("test")));
+        assertTrue(filter.traverse(root.resolve("js")));
+
+        assertTrue(filter.accept(root.resolve("js/a.js")));
+        assertFalse(filter.accept(root.resolve("node_modules/lib/lib.js")));
+        assertFalse(filter.accept(root.resolve("test/data/data.js")));
+        assertFalse(filter.accept(root.resolve("notes.txt")));
+        assertFalse(filter.accept(root.resolve("js/notes.txt")));
+    }
+
+    @Test
+    public void includes() {
+        final SourceFilter filter = new SourceFilter(root, Lists.newArrayList("**/*.html", "js/**"),
+                Collections.emptyList());
+
+        assertTrue(filter.accept(root.resolve("index.html")));
+        assertTrue(filter.accept(root.resolve("pages/index.html")));
+        assertTrue(filter.accept(root.resolve("js/lib/a.js")));
+        assertFalse(filter.accept(root.resolve("css/a.css")));
+        assertTrue(filter.traverse(root.resolve("css")));
+    }
+}
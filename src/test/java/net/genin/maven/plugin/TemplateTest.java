@@ -9,14 +9,19 @@ import static org.junit.Assert.*;
 import com.google.common.collect.Multimap;
 import com.google.common.io.CharSource;
 import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by skarb on 19/10/2014.
@@ -51,6 +56,67 @@ public class TemplateTest {
 
                 }).traverse(resource);
     }
+    @Test
+    public void testStyles() throws Exception {
+
+        final URL resource = Resources.getResource("style");
+        final AtomicInteger templates = new AtomicInteger();
+        new Template.Builder(Lists.newArrayList("html"))
+                .notTemplate(t -> {
+                })
+                .template(t -> {
+                    templates.incrementAndGet();
+                    final Multimap<String, String> scripts = t.scripts();
+                    assertEquals(Lists.newArrayList("css/a.css", "css/b.css"), scripts.get("min/all.css"));
+                    assertTrue(scripts.get("min/debug.css").isEmpty());
+                    assertTrue(t.isStyle("min/all.css"));
+                    assertEquals(Template.Action.delete, t.toAction("min/debug.css"));
+                    assertFalse(t.isStyle("min/all.js"));
+
+                    try {
+                        final String s = CharStreams.toString(new InputStreamReader(t.stream(), Charsets.UTF_8));
+                        assertEquals("<!DOCTYPE html>\n" +
+                                "<html><head lang=\"en\"> \n" +
+                                "<meta charset=\"UTF-8\" /> \n" +
+                                "<title>Style</title> \n" +
+                                "<link rel=\"icon\" href=\"favicon.ico\" /> \n" +
+                                "<link rel=\"stylesheet\" type=\"text/css\" href=\"min/all.css\" /></head><body> \n" +
+                                "<div id=\"content\"></div> \n" +
+                                "<script type=\"application/javascript\" src=\"min/all.js\"></script></body></html>", s);
+                    } catch (IOException e) {
+                        Throwables.propagate(e);
+                    }
+                }).traverse(resource);
+        assertEquals(1, templates.get());
+    }
+
+    @Test
+    public void testInline() throws Exception {
+
+        final URL resource = Resources.getResource("inline");
+        new Template.Builder(Lists.newArrayList("html"))
+                .notTemplate(t -> {
+                })
+                .template(t -> {
+                    assertEquals(2, t.scripts().size());
+                    assertEquals(Template.Action.inline, t.toAction("min/a.js"));
+                    assertEquals(Template.Action.inline, t.toAction("min/a.css"));
+                    try {
+                        final String linked = CharStreams.toString(new InputStreamReader(t.stream(), Charsets.UTF_8));
+                        assertTrue(linked.contains("<link rel=\"stylesheet\" type=\"text/css\" href=\"min/a.css\" /></head>"));
+                        assertTrue(linked.contains("<script type=\"application/javascript\" src=\"min/a.js\"></script></body>"));
+
+                        final String inlined = CharStreams.toString(new InputStreamReader(t.stream(k -> k,
+                                k -> k.endsWith(".js") ? "var a=\"</script>\";" : "body{margin:0}"), Charsets.UTF_8));
+                        assertTrue(inlined.contains("<style type=\"text/css\">body{margin:0}</style></head>"));
+                        assertTrue(inlined.contains("<script type=\"application/javascript\">var a=\"<\\/script>\";</script></body>"));
+                        assertFalse(inlined.contains("min/a."));
+                    } catch (IOException e) {
+                        Throwables.propagate(e);
+                    }
+                }).traverse(resource);
+    }
+
     @Test
     public void testNotTemplate() throws Exception {
 
@@ -183,4 +249,109 @@ public class TemplateTest {
 
                 }).traverse(resource);
     }
+
+    @Test
+    public void testParallelTraverse() throws Exception {
+
+        final URL resource = Resources.getResource("mojo");
+        final AtomicInteger templates = new AtomicInteger();
+        final AtomicInteger notTemplates = new AtomicInteger();
+        new Template.Builder(Lists.newArrayList("html")).threads(4)
+                .notTemplate(t -> notTemplates.incrementAndGet())
+                .template(t -> {
+                    assertEquals(1, t.scripts().keySet().size());
+                    templates.incrementAndGet();
+                }).traverse(resource);
+        assertEquals(1, templates.get());
+        assertEquals(5, notTemplates.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testParallelTraverseWithError() throws Exception {
+
+        final URL resource = Resources.getResource("mojo");
+        new Template.Builder(Lists.newArrayList("html")).threads(4)
+                .notTemplate(t -> {
+                    throw new IllegalStateException(t.url.toString());
+                }).traverse(resource);
+    }
+
+    @Test
+    public void testParallelTraverseWithJvmError() throws Exception {
+
+        final URL resource = Resources.getResource("mojo");
+        final AtomicInteger handled = new AtomicInteger();
+        try {
+            new Template.Builder(Lists.newArrayList("html")).threads(2)
+                    .notTemplate(t -> {
+                        handled.incrementAndGet();
+                        throw new StackOverflowError(t.url.toString());
+                    }).traverse(resource);
+            fail();
+        } catch (StackOverflowError e) {
+//          the walk is stopped after the first error.
+            assertTrue(handled.get() < 5);
+        }
+    }
+
+    @Test
+    public void scanByBlocks() throws Exception {
+        final byte[] marker = "data-script-min".getBytes(Charsets.US_ASCII);
+        for (int offset : new int[]{0, 8 * 1024 - 5, 8 * 1024, 20000}) {
+            final byte[] content = new byte[30000];
+            Arrays.fill(content, (byte) ' ');
+            System.arraycopy("DATA-Script-MIN".getBytes(Charsets.US_ASCII), 0, content, offset, marker.length);
+            assertTrue(String.valueOf(offset), Template.contains(new ByteArrayInputStream(content), marker));
+        }
+        assertFalse(Template.contains(new ByteArrayInputStream(new byte[30000]), marker));
+        assertFalse(Template.contains(new ByteArrayInputStream("data-script".getBytes(Charsets.US_ASCII)), marker));
+    }
+
+    @Test
+    public void testProcessor() throws Exception {
+
+        final URL resource = Resources.getResource("processor");
+        new Template.Builder(Lists.newArrayList("html"))
+                .notTemplate(t -> {
+                })
+                .template(t -> {
+                    assertEquals(2, t.scripts().size());
+                    assertNull(t.toProcessor("min/default.js"));
+                    assertEquals(Minify.Processor.BeautifyJs, t.toProcessor("min/beautify.js"));
+                    assertEquals(Template.Action.minify, t.toAction("min/beautify.js"));
+                }).traverse(resource);
+    }
+
+    @Test
+    public void processorIgnoresCase() throws Exception {
+        final URL url = html("case.html", "<script src=\"js/a.js\" data-script-min=\"min/a.js\" data-processor-min=\"fast\"></script>");
+        final Template t = Template.template(url);
+        t.scripts();
+        assertEquals(Minify.Processor.Fast, t.toProcessor("min/a.js"));
+    }
+
+    @Test
+    public void invalidProcessor() throws Exception {
+        final String[] tags = {
+                "<script src=\"js/a.js\" data-script-min=\"min/a.js\" data-processor-min=\"Uglify\"></script>",
+                "<script src=\"js/a.js\" data-script-min=\"min/a.js\" data-processor-min=\"CssCompressor\"></script>",
+                "<link rel=\"stylesheet\" href=\"css/a.css\" data-style-min=\"min/a.css\" data-processor-min=\"Fast\">"};
+        for (int i = 0; i < tags.length; i++) {
+            final URL url = html("invalid" + i + ".html", tags[i]);
+            try {
+                Template.template(url).scripts();
+                fail(tags[i]);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(url.toString()));
+                assertTrue(e.getMessage(), e.getMessage().contains(i < 2 ? "script bundle min/a.js" : "style bundle min/a.css"));
+            }
+        }
+    }
+
+    private static URL html(final String name, final String tag) throws IOException {
+        final File file = new File("target/TemplateTest/" + name);
+        Files.createParentDirs(file);
+        Files.asCharSink(file, Charsets.UTF_8).write("<html><head></head><body>" + tag + "</body></html>");
+        return file.toURI().toURL();
+    }
 }
@@ -0,0 +1,82 @@
+package net.genin.maven.plugin;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for WatchMojo.
+ */
+public class WatchMojoTest {
+
+    @Test
+    public void rebuildOnChange() throws Exception {
+        final File root = new File("target/watchRoot");
+        final File dest = new File("target/watchTest");
+        for (File dir : new File[]{root, dest}) {
+            if (dir.exists()) {
+                MoreFiles.deleteRecursively(dir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+            }
+        }
+        copy(Paths.get("target/test-classes/watch"), root.toPath());
+
+        final WatchMojo mojo = new WatchMojo();
+        mojo.setRoot(root.getAbsolutePath());
+        mojo.setDestDir(dest.getPath());
+        mojo.setProcessor("UglifyJs");
+        mojo.setWorkDirectory("target/watchWork");
+        mojo.setDebounce(100);
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                mojo.execute();
+            } catch (Exception e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        try {
+            final File all = new File(dest, "min/all.js");
+            await(() -> all.exists() && Files.toString(all, Charsets.UTF_8).contains("var b = 2;"));
+            assertTrue(new File(dest, "index.html").exists());
+
+            Files.write("var b = 3;\n", new File(root, "js/b.js"), Charsets.UTF_8);
+            await(() -> Files.toString(all, Charsets.UTF_8).contains("var b = 3;"));
+            assertTrue(Files.toString(all, Charsets.UTF_8).contains("var a = 1;"));
+        } finally {
+            mojo.stop();
+            thread.join(10000);
+        }
+        assertFalse(thread.isAlive());
+        assertNull(error.get());
+    }
+
+    private static void await(Callable<Boolean> condition) throws Exception {
+        final long end = System.currentTimeMillis() + 30000;
+        while (!condition.call()) {
+            assertTrue("Timeout", System.currentTimeMillis() < end);
+            Thread.sleep(50);
+        }
+    }
+
+    private static void copy(Path from, Path to) throws Exception {
+        for (Path p : MoreFiles.fileTraverser().depthFirstPreOrder(from)) {
+            final Path target = to.resolve(from.relativize(p).toString());
+            if (java.nio.file.Files.isDirectory(p)) {
+                java.nio.file.Files.createDirectories(target);
+            } else {
+                java.nio.file.Files.copy(p, target);
+            }
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package net.genin.maven.plugin;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 
 import static org.junit.Assert.*;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Test of WriterManager;
@@ -28,4 +37,84 @@ public class WriterManagerTest {
         assertTrue(dest.exists());
         assertTrue(Files.equal(new File(url.toURI()), dest));
     }
+
+    @Test
+    public void writeWithSink() throws Exception {
+        final URL url = Resources.getResource("writermanager/1.text");
+        final WriterManager writer = new WriterManager(root, url, destdir + "/sink").run();
+        writer.write(out -> out.write("\u00e9a".getBytes(Charsets.UTF_8)));
+
+        assertEquals("\u00e9a", Files.asCharSource(writer.file(), Charsets.UTF_8).read());
+        assertEquals(1, writer.file().getParentFile().list().length);
+    }
+
+    @Test
+    public void failedSinkKeepsPreviousFile() throws Exception {
+        final URL url = Resources.getResource("writermanager/1.text");
+        final WriterManager writer = new WriterManager(root, url, destdir + "/failed").run();
+        writer.write(out -> out.write('a'));
+        try {
+            writer.write(out -> {
+                out.write('b');
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("a", Files.asCharSource(writer.file(), Charsets.UTF_8).read());
+            assertEquals(1, writer.file().getParentFile().list().length);
+        }
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        final URL url = Resources.getResource("writermanager/1.text");
+        final WriterManager writer = new WriterManager(root, url, destdir + "/gzip").run();
+        writer.write(out -> out.write("\u00e9a".getBytes(Charsets.UTF_8)));
+        final File gz = writer.gzip(9);
+
+        assertEquals(new File(writer.file().getPath() + ".gz"), gz);
+        assertEquals(writer.file().lastModified(), gz.lastModified());
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gz))) {
+            assertEquals("\u00e9a", new String(ByteStreams.toByteArray(in), Charsets.UTF_8));
+        }
+        assertEquals(2, writer.file().getParentFile().list().length);
+    }
+
+    @Test
+    public void gzipRewrittenWithSameModificationTime() throws Exception {
+        final URL url = Resources.getResource("writermanager/1.text");
+        final WriterManager writer = new WriterManager(root, url, destdir + "/gzipRewritten").run();
+        writer.write(out -> out.write('a'));
+        final File gz = writer.gzip(9);
+        final long time = writer.file().lastModified();
+
+//      rewritten within the granularity of the file system.
+        writer.write(out -> out.write('b'));
+        assertTrue(writer.file().setLastModified(time));
+        writer.gzip(9);
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gz))) {
+            assertEquals("b", new String(ByteStreams.toByteArray(in), Charsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void defaultPermissions() throws Exception {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        final URL url = Resources.getResource("writermanager/1.text");
+        final WriterManager writer = new WriterManager(root, url, destdir + "/permissions").run();
+        writer.write(out -> out.write('a'));
+        final File gz = writer.gzip(9);
+        final File reference = new File(writer.file().getParentFile(), "reference");
+        reference.delete();
+        Files.touch(reference);
+
+        final Set<PosixFilePermission> expected = java.nio.file.Files.getPosixFilePermissions(reference.toPath());
+        assertEquals(expected, java.nio.file.Files.getPosixFilePermissions(writer.file().toPath()));
+        assertEquals(expected, java.nio.file.Files.getPosixFilePermissions(gz.toPath()));
+//      readable by a web server running as another user with the usual umask.
+        Assume.assumeTrue(expected.contains(PosixFilePermission.OTHERS_READ));
+        assertTrue(java.nio.file.Files.getPosixFilePermissions(writer.file().toPath())
+                .contains(PosixFilePermission.OTHERS_READ));
+    }
 }
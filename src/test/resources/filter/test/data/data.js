@@ -0,0 +1 @@
+var data = 1;